@@ -0,0 +1,355 @@
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A benchmark suite for the hot paths of Graph and OptGraph: construction, addEdge, deleteNode of hub and
+ * leaf nodes, maxNeighborhoodWeight and getNeighborhoodWeight. TournamentGraph is a Graph with a tournament
+ * tree instead of its heap, run on the same workloads.
+ * <p>
+ * Every (graph, size) pair runs in a fresh JVM, so the JIT profile of one does not leak into another.
+ * Every benchmark runs WARMUP untimed iterations and then ITERATIONS timed ones; the state of an iteration
+ * (the graphs to work on) is prepared before the clock starts. For each benchmark the mean and standard
+ * deviation of the time per operation are reported, along with the bytes allocated per operation by the
+ * benchmark thread and the collections (count and time) that happened during the timed iterations.
+ * <p>
+ * Usage: java [-Xmx...] Benchmark [min exponent] [max exponent] [Graph,OptGraph,TournamentGraph]
+ * runs the sizes n = 2^min, ..., 2^max (by default 2^6, ..., 2^24). The largest sizes need a few GB of heap.
+ * <p>
+ * The graph of size n has 16 hubs (fewer for small n), each with (n - 16) / 64 neighbors, and every other
+ * node i is also joined to i + 1 and i + 7, cyclically among the non-hubs; the edges come in random order.
+ */
+public class Benchmark {
+	private static final int WARMUP = 3, ITERATIONS = 5;
+	private static final int QUERIES = 1 << 20; // operations per iteration of the query benchmarks.
+	private static final int MIN_OPERATIONS = 1 << 16; // small graphs are worked on in batches of about this size.
+	private static volatile long sink; // consumes results, so the JIT does not drop the work.
+	private static volatile Subject target; // read on every query, so the JIT does not hoist it out of the loop.
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if ((args.length == 3) && args[0].equals("run")) {
+			run(args[1], Integer.parseInt(args[2]));
+			return;
+		}
+		int min = (args.length > 0) ? Integer.parseInt(args[0]) : 6;
+		int max = (args.length > 1) ? Integer.parseInt(args[1]) : 24;
+		String[] graphs = (args.length > 2) ? args[2].split(",") : new String[] {"Graph", "OptGraph", "TournamentGraph"};
+		for (int exp = min; exp <= max; exp++)
+			for (String graph : graphs)
+				fork(graph, exp);
+	}
+
+	/**
+	 * Runs the benchmarks of one graph and size in a new JVM with the same options and class path.
+	 * @param graph – "Graph", "OptGraph" or "TournamentGraph".
+	 * @param exp – the size is 2^exp.
+	 */
+	private static void fork(String graph, int exp) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(Benchmark.class.getName());
+		command.add("run");
+		command.add(graph);
+		command.add(Integer.toString(exp));
+		int status = new ProcessBuilder(command).inheritIO().start().waitFor();
+		if (status != 0)
+			System.out.println(graph + " n = 2^" + exp + ": failed with exit status " + status);
+	}
+
+	/**
+	 * Runs the benchmarks of one graph and size in this JVM.
+	 * @param graph – "Graph", "OptGraph" or "TournamentGraph".
+	 * @param exp – the size is 2^exp.
+	 */
+	private static void run(String graph, int exp) {
+		int n = 1 << exp;
+		Fixture fixture = new Fixture(n, new Random(exp));
+		Factory factory;
+		if (graph.equals("OptGraph"))
+			factory = OptGraphSubject::new;
+		else if (graph.equals("TournamentGraph"))
+			factory = nodes -> new GraphSubject(nodes, Graph.TOURNAMENT);
+		else
+			factory = GraphSubject::new;
+		int batch = Math.max(1, MIN_OPERATIONS / n);
+		String prefix = String.format("%-15s n = 2^%-2d ", graph, exp);
+
+		report(prefix + "constructor         ", measure(new Trial<Subject[]>() {
+			public Subject[] setup() {
+				return new Subject[batch];
+			}
+			public long run(Subject[] subjects) {
+				for (int i = 0; i < batch; i++)
+					subjects[i] = factory.create(fixture.nodes);
+				return (long) batch * n;
+			}
+		}), "node");
+
+		report(prefix + "addEdge             ", measure(new Trial<Subject[]>() {
+			public Subject[] setup() {
+				return fixture.create(factory, batch, false);
+			}
+			public long run(Subject[] subjects) {
+				for (Subject subject : subjects)
+					for (int j = 0; j < fixture.src.length; j++)
+						subject.addEdge(fixture.src[j], fixture.dst[j]);
+				return (long) batch * fixture.src.length;
+			}
+		}), "edge");
+
+		report(prefix + "deleteNode (hub)    ", measure(new Trial<Subject[]>() {
+			public Subject[] setup() {
+				return fixture.create(factory, batch, true);
+			}
+			public long run(Subject[] subjects) {
+				for (Subject subject : subjects)
+					for (int hub = 0; hub < fixture.hubs; hub++)
+						subject.deleteNode(hub);
+				return (long) batch * fixture.hubs;
+			}
+		}), "op");
+
+		report(prefix + "deleteNode (leaf)   ", measure(new Trial<Subject[]>() {
+			public Subject[] setup() {
+				return fixture.create(factory, batch, true);
+			}
+			public long run(Subject[] subjects) {
+				for (Subject subject : subjects)
+					for (int leaf : fixture.leaves)
+						subject.deleteNode(leaf);
+				return (long) batch * fixture.leaves.length;
+			}
+		}), "op");
+
+		report(prefix + "maxNeighborhoodWeight", measure(new Trial<Subject>() {
+			public Subject setup() {
+				return fixture.create(factory, 1, true)[0];
+			}
+			public long run(Subject subject) {
+				long sum = 0;
+				target = subject;
+				for (int j = 0; j < QUERIES; j++)
+					sum += target.maxNeighborhoodWeight().getId();
+				sink += sum;
+				return QUERIES;
+			}
+		}), "op");
+
+		report(prefix + "getNeighborhoodWeight", measure(new Trial<Subject>() {
+			public Subject setup() {
+				return fixture.create(factory, 1, true)[0];
+			}
+			public long run(Subject subject) {
+				long sum = 0;
+				for (int id : fixture.queries)
+					sum += subject.getNeighborhoodWeight(id);
+				sink += sum;
+				return QUERIES;
+			}
+		}), "op");
+	}
+
+	/**
+	 * Runs the warmup and the timed iterations of a trial.
+	 * @param trial
+	 * @return the results of the timed iterations: time per operation, bytes per operation, collections and
+	 * collection time in ms.
+	 */
+	private static <S> double[][] measure(Trial<S> trial) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		double[][] results = new double[4][ITERATIONS];
+		for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+			S state = trial.setup();
+			System.gc();
+			long gcs = collections(false), gcTime = collections(true);
+			long allocated = threads.getThreadAllocatedBytes(thread);
+			long start = System.nanoTime();
+			long operations = trial.run(state);
+			long time = System.nanoTime() - start;
+			allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+			if (i < WARMUP)
+				continue;
+			results[0][i - WARMUP] = (double) time / operations;
+			results[1][i - WARMUP] = (double) allocated / operations;
+			results[2][i - WARMUP] = collections(false) - gcs;
+			results[3][i - WARMUP] = collections(true) - gcTime;
+		}
+		return results;
+	}
+
+	/**
+	 * @param time – whether to sum the collection times in ms instead of the collection counts.
+	 * @return the sum over all collectors of the count or the time of their collections so far.
+	 */
+	private static long collections(boolean time) {
+		long sum = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			sum += Math.max(0, time ? gc.getCollectionTime() : gc.getCollectionCount());
+		return sum;
+	}
+
+	/**
+	 * Prints one line of results.
+	 * @param name
+	 * @param results – as returned by measure.
+	 * @param unit – what one operation is.
+	 */
+	private static void report(String name, double[][] results, String unit) {
+		double mean = 0, variance = 0, bytes = 0, gcs = 0, gcTime = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			mean += results[0][i] / ITERATIONS;
+			bytes += results[1][i] / ITERATIONS;
+			gcs += results[2][i];
+			gcTime += results[3][i];
+		}
+		for (int i = 0; i < ITERATIONS; i++)
+			variance += (results[0][i] - mean) * (results[0][i] - mean) / Math.max(1, ITERATIONS - 1);
+		System.out.println(String.format("%s %12.1f +- %9.1f ns/%-4s %10.1f B/%-4s gc: %.0f (%.0f ms)",
+				name, mean, Math.sqrt(variance), unit, bytes, unit, gcs, gcTime));
+	}
+
+	/**
+	 * This interface represents a benchmark: an untimed setup followed by timed work on its result.
+	 */
+	private interface Trial<S> {
+		S setup();
+
+		/**
+		 * @param state – the result of setup.
+		 * @return the number of operations done.
+		 */
+		long run(S state);
+	}
+
+	/**
+	 * This interface represents the graph operations under measurement.
+	 */
+	private interface Subject {
+		boolean addEdge(int node1_id, int node2_id);
+		boolean deleteNode(int node_id);
+		Graph.Node maxNeighborhoodWeight();
+		int getNeighborhoodWeight(int node_id);
+	}
+
+	private interface Factory {
+		Subject create(Graph.Node[] nodes);
+	}
+
+	private static class GraphSubject implements Subject {
+		private final Graph graph;
+
+		public GraphSubject(Graph.Node[] nodes) {
+			this.graph = new Graph(nodes);
+		}
+		public GraphSubject(Graph.Node[] nodes, int arity) {
+			this.graph = new Graph(nodes, arity);
+		}
+		public boolean addEdge(int node1_id, int node2_id) {
+			return this.graph.addEdge(node1_id, node2_id);
+		}
+		public boolean deleteNode(int node_id) {
+			return this.graph.deleteNode(node_id);
+		}
+		public Graph.Node maxNeighborhoodWeight() {
+			return this.graph.maxNeighborhoodWeight();
+		}
+		public int getNeighborhoodWeight(int node_id) {
+			return this.graph.getNeighborhoodWeight(node_id);
+		}
+	}
+
+	private static class OptGraphSubject implements Subject {
+		private final OptGraph graph;
+
+		public OptGraphSubject(Graph.Node[] nodes) {
+			this.graph = new OptGraph(nodes);
+		}
+		public boolean addEdge(int node1_id, int node2_id) {
+			return this.graph.addEdge(node1_id, node2_id);
+		}
+		public boolean deleteNode(int node_id) {
+			return this.graph.deleteNode(node_id);
+		}
+		public Graph.Node maxNeighborhoodWeight() {
+			return this.graph.maxNeighborhoodWeight();
+		}
+		public int getNeighborhoodWeight(int node_id) {
+			return this.graph.getNeighborhoodWeight(node_id);
+		}
+	}
+
+	/**
+	 * This class represents the input of the benchmarks of one size: the nodes, the edges in random order,
+	 * the hubs (ids 0, ..., hubs - 1), a random set of leaves to delete and random ids to query.
+	 */
+	private static class Fixture {
+		private final Graph.Node[] nodes;
+		private final int[] src, dst, leaves, queries;
+		private final int hubs;
+
+		public Fixture(int n, Random rand) {
+			this.hubs = Math.min(16, n / 8);
+			int rest = n - this.hubs, hubDegree = Math.max(1, rest / 64), m = 2 * rest + this.hubs * hubDegree, j = 0;
+			this.nodes = new Graph.Node[n];
+			for (int i = 0; i < n; i++)
+				this.nodes[i] = new Graph.Node(i, rand.nextInt(1000));
+			this.src = new int[m];
+			this.dst = new int[m];
+			for (int i = 0; i < rest; i++) {
+				this.src[j] = this.src[j + 1] = this.hubs + i;
+				this.dst[j++] = this.hubs + (i + 1) % rest;
+				this.dst[j++] = this.hubs + (i + 7) % rest;
+			}
+			for (int hub = 0; hub < this.hubs; hub++)
+				for (int i = 0; i < hubDegree; i++) {
+					this.src[j] = hub;
+					this.dst[j++] = this.hubs + (hub + 64 * i) % rest;
+				}
+			for (int i = m - 1, k, tmp; i > 0; i--) {
+				k = rand.nextInt(i + 1);
+				tmp = this.src[i]; this.src[i] = this.src[k]; this.src[k] = tmp;
+				tmp = this.dst[i]; this.dst[i] = this.dst[k]; this.dst[k] = tmp;
+			}
+			int[] order = new int[rest];
+			for (int i = 0; i < rest; i++)
+				order[i] = this.hubs + i;
+			this.leaves = new int[Math.max(1, rest / 16)];
+			for (int i = 0, k; i < this.leaves.length; i++) {
+				k = i + rand.nextInt(rest - i);
+				this.leaves[i] = order[k];
+				order[k] = order[i];
+			}
+			this.queries = new int[QUERIES];
+			for (int i = 0; i < QUERIES; i++)
+				this.queries[i] = rand.nextInt(n);
+		}
+
+		/**
+		 * @param factory
+		 * @param count
+		 * @param edges – whether to add the edges.
+		 * @return count graphs on the nodes, with or without the edges.
+		 */
+		public Subject[] create(Factory factory, int count, boolean edges) {
+			Subject[] subjects = new Subject[count];
+			for (int i = 0; i < count; i++) {
+				subjects[i] = factory.create(this.nodes);
+				if (edges)
+					for (int j = 0; j < this.src.length; j++)
+						subjects[i].addEdge(this.src[j], this.dst[j]);
+			}
+			return subjects;
+		}
+	}
+}
@@ -0,0 +1,442 @@
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *
+ */
+
+/**
+ * @author almog
+ *
+ */
+
+/**
+ * This class represents a thread‐safe graph that efficiently maintains the heaviest neighborhood over edge
+ * addition and vertex deletion, for many threads at once.
+ * The slots of the nodes are split into stripes (slot mod S), and every stripe has its own lock, adjacency and
+ * Max Heap, so operations on nodes of different stripes run in parallel.
+ * The maxima of the stripes are combined by a tournament tree, which is only touched when the max of a stripe
+ * changes.
+ * Reads never lock: the overall max is published as a single volatile long, and the neighborhood weights of a
+ * stripe are read under its sequence number (a seqlock), retrying if a writer was active meanwhile.
+ *
+ */
+public class ConcurrentGraph {
+	private static final long NONE = Long.MIN_VALUE; // tournament value of an empty stripe.
+	private final Graph.Node[] nodes; // the node of each slot.
+	private final int[] weights; // the weight of each slot.
+	private final Graph.Hashtable table; // maps a node id to its slot, never changed after construction.
+	private final Stripe[] stripes;
+	private final int shift; // log(S).
+	private final long[] tournament; // tournament[S + s] is the max of stripe s, and tournament[1] the overall max.
+	private volatile long max; // tournament[1], as published to readers.
+	private final LongAdder numNodes = new LongAdder(), numEdges = new LongAdder();
+
+	/**
+	 * Initializes the graph on a given set of nodes, with a stripe count of four per core.
+	 * <p>
+	 * Time Complexity: O(N).
+	 * @param nodes – an array of node objects
+	 */
+	public ConcurrentGraph(Graph.Node[] nodes) {
+		this(nodes, 4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Initializes the graph on a given set of nodes. The created graph is empty, i.e. it has no edges.
+	 * You may assume that the ids of distinct nodes are distinct.
+	 * <p>
+	 * Time Complexity: O(N).
+	 * @param nodes – an array of node objects
+	 * @param stripes – the number of stripes, rounded up to a power of 2 and at most 64.
+	 */
+	public ConcurrentGraph(Graph.Node[] nodes, int stripes) {
+		int N = nodes.length;
+		int S = Math.min(64, Integer.highestOneBit(Math.max(1, stripes) - 1) << 1);
+		if (S == 0)
+			S = 1;
+		this.shift = Integer.numberOfTrailingZeros(S);
+		this.nodes = nodes.clone();
+		this.weights = new int[N];
+		this.table = new Graph.Hashtable(N);
+		for (int i = 0; i < N; i++) {
+			this.weights[i] = nodes[i].getWeight();
+			this.table.add(nodes[i].getId(), i);
+		}
+		this.stripes = new Stripe[S];
+		this.tournament = new long[2 * S];
+		for (int s = 0; s < S; s++) {
+			this.stripes[s] = new Stripe(s, (N - s + S - 1) >> this.shift);
+			this.tournament[S + s] = this.stripes[s].max;
+		}
+		for (int i = S - 1; i > 0; i--)
+			this.tournament[i] = Math.max(this.tournament[2 * i], this.tournament[2 * i + 1]);
+		this.max = this.tournament[1];
+		this.numNodes.add(N);
+	}
+
+	/**
+	 * This method returns the node in the graph with the maximum neighborhood weight.
+	 * It never blocks: the max is read from a single volatile field, so it is never torn.
+	 * <p>
+	 * Time Complexity: Θ(1).
+	 * @return a Node object representing the correct node. If there is no node in the graph, returns 'null'.
+	 */
+	public Graph.Node maxNeighborhoodWeight() {
+		long max = this.max;
+		if (max == NONE)
+			return null;
+		return this.nodes[(int) max];
+	}
+
+	/**
+	 * given a node id of a node in the graph, this method returns the neighborhood weight of that node.
+	 * It never blocks: the weight is read between two reads of the sequence number of the stripe, and read
+	 * again if a writer of the stripe was active in between.
+	 * <p>
+	 * Average Time Complexity: Θ(1) without write contention on the stripe.
+	 * @param node_id – an id of a node.
+	 * @return the neighborhood weight of the node. Otherwise, the function returns -1.
+	 */
+	public int getNeighborhoodWeight(int node_id) {
+		int slot = this.table.get(node_id);
+		if (slot == -1)
+			return -1;
+		Stripe stripe = stripeOf(slot);
+		int local = slot >>> this.shift, version, key;
+		while (true) {
+			version = stripe.version;
+			if ((version & 1) == 0) {
+				key = stripe.heap.contains(local) ? stripe.heap.getKey(local) : -1;
+				VarHandle.acquireFence();
+				if (stripe.version == version)
+					return key;
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * This function adds an edge between the two nodes whose ids are specified, under the same rules as
+	 * Graph.addEdge, so an edge that is already in the graph is not added again. Only the stripes of the two
+	 * nodes are locked; the edge is looked up in the edge index of the stripe of the smaller slot.
+	 * <p>
+	 * Average Time Complexity: Θ(log(n)).
+	 * @param node1_id – the id of the first node.
+	 * @param node2_id – the id of the second node.
+	 * @return returns 'true' if the function added an edge, otherwise returns 'false'.
+	 */
+	public boolean addEdge(int node1_id, int node2_id) {
+		if (node1_id == node2_id)
+			return false;
+		int slot1 = this.table.get(node1_id), slot2 = this.table.get(node2_id);
+		if ((slot1 == -1) || (slot2 == -1))
+			return false;
+		int local1 = slot1 >>> this.shift, local2 = slot2 >>> this.shift;
+		Stripe stripe1 = stripeOf(slot1), stripe2 = stripeOf(slot2);
+		long mask = (1L << stripe1.index) | (1L << stripe2.index);
+		lock(mask);
+		try {
+			if (!stripe1.heap.contains(local1) || !stripe2.heap.contains(local2))
+				return false;
+			if (!stripeOf(Math.min(slot1, slot2)).edges.add(Math.min(slot1, slot2), Math.max(slot1, slot2), 0))
+				return false;
+			beginWrite(mask);
+			int i1 = stripe1.append(local1, slot2);
+			int i2 = stripe2.append(local2, slot1);
+			stripe1.positions[local1][i1] = i2;
+			stripe2.positions[local2][i2] = i1;
+			stripe1.heap.increaseKey(local1, this.weights[slot2]);
+			stripe2.heap.increaseKey(local2, this.weights[slot1]);
+			publish(stripe1);
+			publish(stripe2);
+			endWrite(mask);
+		}
+		finally {
+			unlock(mask);
+		}
+		this.numEdges.increment();
+		return true;
+	}
+
+	/**
+	 * Given the id of a node in the graph, deletes the node of that id from the graph, if it exists.
+	 * The stripes of the node, of its neighbors, and of the entries that the unlinking moves are locked, in
+	 * increasing order; since the last two are only known under the locks, the set is grown until it is stable.
+	 * <p>
+	 * Average Time Complexity: Θ((deg(Node) + 1)log(n)).
+	 * @param node_id – the id of the node to delete.
+	 * @return returns 'true' if the function deleted a node, otherwise returns 'false'
+	 */
+	public boolean deleteNode(int node_id) {
+		int slot = this.table.get(node_id);
+		if (slot == -1)
+			return false;
+		Stripe stripe = stripeOf(slot);
+		int local = slot >>> this.shift;
+		long mask = 1L << stripe.index, needed;
+		stripe.lock.lock();
+		try {
+			needed = neededStripes(stripe, local, 0);
+		}
+		finally {
+			stripe.lock.unlock();
+		}
+		mask |= needed;
+		while (true) {
+			lock(mask);
+			needed = neededStripes(stripe, local, mask);
+			if ((needed & ~mask) == 0)
+				break;
+			unlock(mask);
+			mask |= needed;
+		}
+		try {
+			if (!stripe.heap.contains(local))
+				return false;
+			beginWrite(mask);
+			stripe.heap.delete(local);
+			int weight = this.weights[slot], neighbor, degree = stripe.degrees[local];
+			Stripe neighborStripe;
+			for (int i = degree - 1; i >= 0; i--) {
+				neighbor = stripe.neighbors[local][i];
+				neighborStripe = stripeOf(neighbor);
+				neighborStripe.remove(neighbor >>> this.shift, stripe.positions[local][i]);
+				neighborStripe.heap.decreaseKey(neighbor >>> this.shift, weight);
+				stripeOf(Math.min(slot, neighbor)).edges.remove(Math.min(slot, neighbor), Math.max(slot, neighbor));
+			}
+			stripe.neighbors[local] = null;
+			stripe.positions[local] = null;
+			stripe.degrees[local] = 0;
+			for (int s = 0; s < this.stripes.length; s++)
+				if ((mask & (1L << s)) != 0)
+					publish(this.stripes[s]);
+			endWrite(mask);
+			this.numEdges.add(-degree);
+		}
+		finally {
+			unlock(mask);
+		}
+		this.numNodes.decrement();
+		return true;
+	}
+
+	/**
+	 * Returns the number of nodes currently in the graph.
+	 * <p>
+	 * Time Complexity: Θ(S).
+	 * @return the number of nodes in the graph.
+	 */
+	public int getNumNodes() {
+		return this.numNodes.intValue();
+	}
+
+	/**
+	 * Returns the number of edges currently in the graph.
+	 * <p>
+	 * Time Complexity: Θ(S).
+	 * @return the number of edges currently in the graph.
+	 */
+	public int getNumEdges() {
+		return this.numEdges.intValue();
+	}
+
+	/**
+	 * Returns the stripes that deleting the node touches: its own, those of its neighbors and those of the last
+	 * neighbor of every neighbor, whose entry the unlinking moves. The last ones are only looked at for
+	 * neighbors whose stripe is locked.
+	 * Must be called while holding the lock of the stripe of the node.
+	 * <p>
+	 * Time Complexity: Θ(deg(Node) + 1).
+	 * @param stripe – the stripe of the node.
+	 * @param local – the index of the node inside its stripe.
+	 * @param locked – the set of stripes that are locked, as a bit mask.
+	 * @return the set of stripes, as a bit mask.
+	 */
+	private long neededStripes(Stripe stripe, int local, long locked) {
+		long mask = 1L << stripe.index;
+		int neighbor, last;
+		Stripe neighborStripe;
+		for (int i = 0; i < stripe.degrees[local]; i++) {
+			neighbor = stripe.neighbors[local][i];
+			neighborStripe = stripeOf(neighbor);
+			mask |= 1L << neighborStripe.index;
+			if ((locked & (1L << neighborStripe.index)) != 0) {
+				last = neighborStripe.degrees[neighbor >>> this.shift] - 1;
+				mask |= 1L << stripeOf(neighborStripe.neighbors[neighbor >>> this.shift][last]).index;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Makes the sequence numbers of the locked stripes in the mask odd, before their data is changed.
+	 * The release fence keeps the data writes from becoming visible before the odd sequence numbers.
+	 * <p>
+	 * Time Complexity: Θ(S).
+	 * @param mask
+	 */
+	private void beginWrite(long mask) {
+		for (int s = 0; s < this.stripes.length; s++)
+			if ((mask & (1L << s)) != 0)
+				this.stripes[s].version++;
+		VarHandle.releaseFence();
+	}
+
+	/**
+	 * Makes the sequence numbers of the locked stripes in the mask even again, after their data is changed.
+	 * <p>
+	 * Time Complexity: Θ(S).
+	 * @param mask
+	 */
+	private void endWrite(long mask) {
+		for (int s = 0; s < this.stripes.length; s++)
+			if ((mask & (1L << s)) != 0)
+				this.stripes[s].version++;
+	}
+
+	/**
+	 * Publishes the max of the stripe to the tournament tree, if it has changed.
+	 * Must be called while holding the lock of the stripe.
+	 * <p>
+	 * Time Complexity: O(log(S)).
+	 * @param stripe
+	 */
+	private void publish(Stripe stripe) {
+		long max = stripe.currentMax();
+		if (max == stripe.max)
+			return;
+		stripe.max = max;
+		synchronized (this.tournament) {
+			int i = this.stripes.length + stripe.index;
+			this.tournament[i] = max;
+			for (i /= 2; i > 0; i /= 2)
+				this.tournament[i] = Math.max(this.tournament[2 * i], this.tournament[2 * i + 1]);
+			this.max = this.tournament[1];
+		}
+	}
+
+	/**
+	 * Returns the stripe of the slot.
+	 * <p>
+	 * Time Complexity: Θ(1).
+	 * @param slot
+	 * @return the stripe of the slot.
+	 */
+	private Stripe stripeOf(int slot) {
+		return this.stripes[slot & (this.stripes.length - 1)];
+	}
+
+	/**
+	 * Locks the stripes in the mask, in increasing order.
+	 * <p>
+	 * Time Complexity: Θ(S).
+	 * @param mask
+	 */
+	private void lock(long mask) {
+		for (int s = 0; s < this.stripes.length; s++)
+			if ((mask & (1L << s)) != 0)
+				this.stripes[s].lock.lock();
+	}
+
+	/**
+	 * Unlocks the stripes in the mask.
+	 * <p>
+	 * Time Complexity: Θ(S).
+	 * @param mask
+	 */
+	private void unlock(long mask) {
+		for (int s = this.stripes.length - 1; s >= 0; s--)
+			if ((mask & (1L << s)) != 0)
+				this.stripes[s].lock.unlock();
+	}
+
+	/**
+	 * This class represents a stripe: the nodes whose slot is index mod S, with their adjacency and Max Heap.
+	 * The i‐th node of the stripe is the node of slot i * S + index. Every entry of an adjacency array holds
+	 * the slot of the neighbor, and the position of the reverse entry in the neighbor's array. The edges whose
+	 * smaller slot is in the stripe are kept in its edge index, which only tells whether an edge exists.
+	 */
+	public class Stripe {
+		private final int index;
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Graph.MaxHeap heap; // the neighborhood weights of the nodes of the stripe.
+		private final int[][] neighbors; // the slots of the neighbors of each node of the stripe.
+		private final int[][] positions; // the positions of the reverse entries.
+		private final int[] degrees;
+		private final Graph.EdgeIndex edges = new Graph.EdgeIndex(0); // the edges (lo, hi) with lo in the stripe.
+		private long max; // the max of the stripe as last published, guarded by the lock.
+		private volatile int version = 0; // sequence number, odd while a writer changes the stripe.
+
+		/**
+		 * Constructs the stripe of the given index with its n nodes.
+		 * <p>
+		 * Time Complexity: Θ(n).
+		 * @param index
+		 * @param n
+		 */
+		public Stripe(int index, int n) {
+			this.index = index;
+			int[] keys = new int[n];
+			for (int i = 0; i < n; i++)
+				keys[i] = ConcurrentGraph.this.weights[(i << ConcurrentGraph.this.shift) + index];
+			this.heap = new Graph.MaxHeap(keys);
+			this.neighbors = new int[n][];
+			this.positions = new int[n][];
+			this.degrees = new int[n];
+			this.max = currentMax();
+		}
+
+		/**
+		 * Returns the max of the stripe, packed as the key in the high half and the slot in the low half.
+		 * <p>
+		 * Time Complexity: Θ(1).
+		 * @return the packed max, or NONE if the stripe is empty.
+		 */
+		private long currentMax() {
+			if (this.heap.getLength() == 0)
+				return NONE;
+			int local = this.heap.getMax();
+			return ((long) this.heap.getKey(local) << 32) | ((local << ConcurrentGraph.this.shift) + this.index);
+		}
+
+		/**
+		 * Appends the neighbor to the adjacency array of the node, growing it if it is full.
+		 * <p>
+		 * Amortized Time Complexity: Θ(1).
+		 * @param local
+		 * @param neighbor – the slot of the neighbor.
+		 * @return the position of the new entry.
+		 */
+		private int append(int local, int neighbor) {
+			int degree = this.degrees[local];
+			if ((this.neighbors[local] == null) || (degree == this.neighbors[local].length)) {
+				int capacity = Math.max(2, 2 * degree);
+				this.neighbors[local] = (degree == 0) ? new int[capacity] : Arrays.copyOf(this.neighbors[local], capacity);
+				this.positions[local] = (degree == 0) ? new int[capacity] : Arrays.copyOf(this.positions[local], capacity);
+			}
+			this.neighbors[local][degree] = neighbor;
+			this.degrees[local] = degree + 1;
+			return degree;
+		}
+
+		/**
+		 * Removes the i‐th entry of the node by moving the last entry into its place, and updates the reverse
+		 * entry of the moved one, which may belong to another (locked) stripe.
+		 * <p>
+		 * Time Complexity: Θ(1).
+		 * @param local
+		 * @param i
+		 */
+		private void remove(int local, int i) {
+			int last = --this.degrees[local];
+			if (i == last)
+				return;
+			int neighbor = this.neighbors[local][i] = this.neighbors[local][last];
+			int position = this.positions[local][i] = this.positions[local][last];
+			stripeOf(neighbor).positions[neighbor >>> ConcurrentGraph.this.shift][position] = i;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class streams a text edge list into a Graph.
+ * <p>
+ * The file holds one edge per line, as two decimal ids separated by spaces or tabs; blank lines are skipped,
+ * and a '#' starts a comment that runs to the end of its line. The file is read through a FileChannel into
+ * a reusable direct buffer, the ids are parsed straight from the bytes, and the edges are collected in
+ * reusable primitive arrays and added in fixed‐size batches through Graph.addEdges, so no object is created
+ * per line. An ingester can be used for many files, one at a time.
+ */
+public class EdgeIngester {
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+	public static final int DEFAULT_BATCH_SIZE = 1 << 16;
+	private final ByteBuffer buffer;
+	private final int[] src, dst;
+
+	/**
+	 * Constructs an ingester with the default buffer and batch sizes.
+	 */
+	public EdgeIngester() {
+		this(DEFAULT_BUFFER_SIZE, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param bufferSize – the number of bytes read at a time.
+	 * @param batchSize – the number of edges added at a time.
+	 */
+	public EdgeIngester(int bufferSize, int batchSize) {
+		if ((bufferSize < 1) || (batchSize < 1))
+			throw new IllegalArgumentException("sizes must be positive: " + bufferSize + ", " + batchSize);
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.src = new int[batchSize];
+		this.dst = new int[batchSize];
+	}
+
+	/**
+	 * Adds the edges of an edge list file to the graph, each one under the same rules as addEdge.
+	 * The edges of the batches before a malformed line are added.
+	 * <p>
+	 * Average Time Complexity: Θ(b + m log(n)) in W.C., and Θ(b + m + n) for large batches, where b is the
+	 * size of the file and m is the number of edges in it.
+	 * @param path – the edge list file.
+	 * @param graph
+	 * @return the number of edges the function added.
+	 * @throws IOException if the file cannot be read, or a line is not a pair of ids.
+	 */
+	public long ingest(Path path, Graph graph) throws IOException {
+		ByteBuffer buffer = this.buffer;
+		int[] src = this.src, dst = this.dst;
+		long added = 0, line = 1, value = 0;
+		int count = 0, field = 0; // the number of ids on the current line so far.
+		boolean digits = false, negative = false, comment = false;
+		byte b;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			while (true) {
+				buffer.clear();
+				if (channel.read(buffer) == -1)
+					break;
+				for (int i = 0, limit = buffer.position(); i < limit; i++) {
+					b = buffer.get(i);
+					if (comment) {
+						if (b == '\n') {
+							comment = false;
+							field = 0;
+							line++;
+						}
+						continue;
+					}
+					if ((b >= '0') && (b <= '9')) {
+						value = 10 * value + (b - '0');
+						if (value > (long) Integer.MAX_VALUE + 1)
+							throw error(path, line, "id out of range");
+						digits = true;
+						continue;
+					}
+					if (digits) { // the end of an id.
+						if (b == '-')
+							throw error(path, line, "'-' inside an id");
+						if (field == 2)
+							throw error(path, line, "more than two ids");
+						if (negative)
+							value = -value;
+						if (value > Integer.MAX_VALUE)
+							throw error(path, line, "id out of range");
+						if (field == 0)
+							src[count] = (int) value;
+						else {
+							dst[count++] = (int) value;
+							if (count == src.length) {
+								added += graph.addEdges(src, dst, count);
+								count = 0;
+							}
+						}
+						field++;
+						value = 0;
+						digits = negative = false;
+					}
+					else if (negative)
+						throw error(path, line, "'-' without digits");
+					if (b == '-')
+						negative = true;
+					else if (b == '\n') {
+						if (field == 1)
+							throw error(path, line, "one id");
+						field = 0;
+						line++;
+					}
+					else if (b == '#') {
+						if (field == 1)
+							throw error(path, line, "one id");
+						comment = true;
+					}
+					else if ((b != ' ') && (b != '\t') && (b != '\r'))
+						throw error(path, line, "unexpected character '" + (char) (b & 0xFF) + "'");
+				}
+			}
+		}
+		if (digits) { // the last line does not end with a newline.
+			if (field != 1)
+				throw error(path, line, (field == 0) ? "one id" : "more than two ids");
+			if (negative)
+				value = -value;
+			if (value > Integer.MAX_VALUE)
+				throw error(path, line, "id out of range");
+			dst[count++] = (int) value;
+		}
+		else if (negative)
+			throw error(path, line, "'-' without digits");
+		else if (field == 1)
+			throw error(path, line, "one id");
+		if (count > 0)
+			added += graph.addEdges(src, dst, count);
+		return added;
+	}
+
+	/**
+	 * @param path
+	 * @param line
+	 * @param message
+	 * @return an exception for a malformed line.
+	 */
+	private static IOException error(Path path, long line, String message) {
+		return new IOException(path + ":" + line + ": " + message);
+	}
+}
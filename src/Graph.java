@@ -1,4 +1,22 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
 
 /**
  * @author almog
@@ -16,35 +34,157 @@ You are allowed to add classes, methods, and members as required.
  *
  */
 public class Graph {
+	public static final int TOURNAMENT = 0; // the arity that selects a tournament tree instead of a heap.
 	private int num_nodes, num_edges = 0;
-	private GraphNode[] graph;
-	private MaxHeap maxHeap;
-	private Hashtable table;
+	private int num_slots; // number of slots handed out so far; the per‐node arrays may be longer.
+	private Node[] nodes; // the node of each slot, null once it is deleted.
+	private int[] ids; // the id of each slot.
+	private int[] weights; // the weight of each slot.
+	private Adjacency adjacency; // the neighbors of each slot.
+	private MaxStructure maxStructure; // the neighborhood weight of each slot, and the max among them.
+	private Hashtable table; // maps a node id to its slot.
+	private EdgeIndex edges; // maps every edge to its entries in the adjacency.
+	private int[] deltas; // pending key change of each slot during a bulk operation, all 0 in between.
+	private OperationLog log; // records every mutation, null if none is attached.
+	private CopyOnWrite cow; // the write barrier of the snapshots, null until the first one is taken.
+	private static final int MAGIC = 0x47525048; // "GRPH", the first int of a snapshot file.
+	private static final int VERSION = 1; // the version of the snapshot layout.
+	private static final int HEADER = 16; // the number of ints in the header of a snapshot.
+	
+	/**
+	 * An uninitialized graph, to be filled by load.
+	 */
+	private Graph() {
+	}
 	
 	
     /**
      * Initializes the graph on a given set of nodes. The created graph is empty, i.e. it has no edges.
      * You may assume that the ids of distinct nodes are distinct.
      * <p>
+     * Every node is given a dense slot (its index in nodes), and the per‐node data is kept in
+     * parallel primitive arrays indexed by that slot, instead of an object per node.
+     * <p>
      * Time Complexity: O(N).
      * @param nodes – an array of node objects
      */
     public Graph(Node[] nodes) {
+    	this(nodes, MaxHeap.DEFAULT_ARITY);
+    }
+
+    /**
+     * Initializes the graph on a given set of nodes, with a heap of the given arity, or with a tournament tree
+     * (see TournamentTree) if the arity is TOURNAMENT.
+     * <p>
+     * Time Complexity: O(N).
+     * @param nodes – an array of node objects
+     * @param arity – the number of children of every heap node, at least 2, or TOURNAMENT.
+     */
+    public Graph(Node[] nodes, int arity) {
+    	this(nodes, arity, false);
+    }
+
+    /**
+     * Initializes the graph on a given set of nodes, with a heap of the given arity, possibly in parallel.
+     * In parallel, the per‐node arrays and the hash table are filled by fork–join tasks over ranges of slots,
+     * and the heap is heapified one level at a time, the nodes of a level in parallel.
+     * <p>
+     * Time Complexity: O(N), and O(N / p + log(N)^2) on p cores in parallel.
+     * @param nodes – an array of node objects
+     * @param arity – the number of children of every heap node, at least 2, or TOURNAMENT.
+     * @param parallel – whether to initialize in parallel.
+     */
+    public Graph(Node[] nodes, int arity, boolean parallel) {
+    	this(nodes, arity, parallel, null, null);
+    }
+
+    /**
+     * Initializes the graph on a given set of nodes and, if src is not null, on the edges (src[i], dst[i]).
+     * The heap is built once, out of the final neighborhood weights.
+     * <p>
+     * Average Time Complexity: Θ(N + m), where m is the number of edges.
+     * @param nodes – an array of node objects
+     * @param arity – the number of children of every heap node, at least 2, or TOURNAMENT.
+     * @param parallel – whether to initialize in parallel.
+     * @param src – the ids of the first nodes of the edges, or null.
+     * @param dst – the ids of the second nodes of the edges, or null.
+     */
+    private Graph(Node[] nodes, int arity, boolean parallel, int[] src, int[] dst) {
     	int N = nodes.length;
+    	this.nodes = new Node[N];
+    	this.ids = new int[N];
+    	this.weights = new int[N];
+    	this.adjacency = new Adjacency(N);
+    	this.table = new Hashtable(N); // Θ(N).
+    	this.edges = new EdgeIndex((src == null) ? 0 : src.length);
+    	RangeTask.run(0, N, (from, to) -> initialize(nodes, from, to), parallel); // Θ(N).
+    	this.table.addAll(this.ids, parallel); // Θ(N) on average.
+    	int[] keys = this.weights.clone();
+    	if (src != null) {
+    		int m = src.length;
+    		int[] slots1 = new int[m], slots2 = new int[m];
+    		RangeTask.run(0, m, (from, to) -> { // Θ(m) on average.
+    			int slot1, slot2;
+    			for (int i = from; i < to; i++) {
+    				slot1 = this.table.get(src[i]);
+    				slot2 = this.table.get(dst[i]);
+    				if ((src[i] == dst[i]) || (slot1 == -1) || (slot2 == -1))
+    					slot1 = slot2 = -1;
+    				slots1[i] = slot1;
+    				slots2[i] = slot2;
+    			}
+    		}, parallel);
+    		this.edges.addAll(slots1, slots2, parallel); // Θ(m) on average.
+    		this.num_edges = this.adjacency.load(slots1, slots2, parallel); // Θ(N + m).
+    		this.edges.index(this.adjacency, N, parallel); // Θ(N + m) on average.
+    		RangeTask.run(0, N, (from, to) -> { // Θ(N + m).
+    			int key;
+    			for (int slot = from; slot < to; slot++) {
+    				key = this.weights[slot];
+    				for (int i = this.adjacency.getDegree(slot) - 1; i >= 0; i--)
+    					key += this.weights[this.adjacency.getNeighbor(slot, i)];
+    				keys[slot] = key;
+    			}
+    		}, parallel);
+    	}
+    	this.maxStructure = (arity == TOURNAMENT) ? new TournamentTree(keys, parallel) : new MaxHeap(keys, arity, parallel);
+    	this.num_nodes = this.num_slots = N;
+    }
+
+    /**
+     * Creates a graph on a given set of nodes and the edges (src[i], dst[i]), each one under the same rules
+     * as addEdge, so a repeated edge is added once. Instead of adding the edges one by one, the degrees are counted in parallel and prefix‐summed
+     * into a compact adjacency with one range per node, every neighborhood weight is computed in one pass over
+     * it, and the heap is built once. The graph can be changed later like any other.
+     * <p>
+     * Average Time Complexity: Θ(N + m), where m is the number of edges.
+     * @param nodes – an array of node objects
+     * @param src – the ids of the first nodes.
+     * @param dst – the ids of the second nodes, of the same length as src.
+     * @return the graph.
+     */
+    public static Graph fromEdges(Node[] nodes, int[] src, int[] dst) {
+    	if (src.length != dst.length)
+    		throw new IllegalArgumentException("src and dst must have the same length");
+    	return new Graph(nodes, MaxHeap.DEFAULT_ARITY, true, src, dst);
+    }
+
+    /**
+     * Copies the nodes of the slots from, ..., to - 1 into the per‐node arrays.
+     * <p>
+     * Time Complexity: Θ(to - from).
+     * @param nodes
+     * @param from
+     * @param to
+     */
+    private void initialize(Node[] nodes, int from, int to) {
     	Node node;
-    	HashNode hashNode;
-    	this.graph = new GraphNode[N];
-    	this.table = new Hashtable((int) 2.5 * N); // Θ(N).
-    	HeapNode[] heapArray = new HeapNode[N];
-    	for (int i = 0; i < N; i++) { // Θ(N) on average.
+    	for (int i = from; i < to; i++) {
     		node = nodes[i];
-    		this.graph[i] = new GraphNode(i, node);
-    		heapArray[i] = new HeapNode(node.getWeight(), node.getId(), i);
-    		hashNode = new HashNode(node.getId(), heapArray[i], this.graph[i]);
-    		this.table.add(hashNode); // Θ(1) on average.
+    		this.nodes[i] = node;
+    		this.ids[i] = node.getId();
+    		this.weights[i] = node.getWeight();
     	}
-    	this.maxHeap = new MaxHeap(heapArray);
-    	this.num_nodes = N;
     }
 
     /**
@@ -57,8 +197,49 @@ public class Graph {
     public Node maxNeighborhoodWeight() {
     	if (this.num_nodes == 0)
     		return null;
-    	int node_id = this.maxHeap.getMax().getId();
-    	return this.table.get(node_id).getGraphNode().getNode();
+    	if (!GraphMetrics.ENABLED)
+    		return this.nodes[this.maxStructure.getMax()];
+    	long start = System.nanoTime();
+    	Node node = this.nodes[this.maxStructure.getMax()];
+    	GraphMetrics.MAX_NEIGHBORHOOD_WEIGHT.record(System.nanoTime() - start);
+    	return node;
+    }
+
+    /**
+     * This method returns the k nodes in the graph with the maximum neighborhood weights, heaviest first.
+     * The graph is not changed.
+     * <p>
+     * Time Complexity: Θ(k log(k)).
+     * @param k – the number of nodes to return.
+     * @return an array of the min(k, n) heaviest nodes.
+     */
+    public Node[] topK(int k) {
+    	int[] slots = new int[Math.max(0, Math.min(k, this.num_nodes))];
+    	int count = this.maxStructure.topK(slots.length, slots);
+    	Node[] result = new Node[count];
+    	for (int i = 0; i < count; i++)
+    		result[i] = this.nodes[slots[i]];
+    	return result;
+    }
+
+    /**
+     * Fills the given buffers with the ids and the neighborhood weights of the k nodes in the graph with the
+     * maximum neighborhood weights, heaviest first. The graph is not changed, and nothing is allocated once
+     * the internal frontier has grown to k.
+     * <p>
+     * Time Complexity: Θ(k log(k)).
+     * @param k – the number of nodes to report.
+     * @param node_ids – the buffer for the ids.
+     * @param neighborhood_weights – the buffer for the neighborhood weights, at least as long as node_ids.
+     * @return the number of nodes reported, i.e. min(k, n, node_ids.length).
+     */
+    public int topK(int k, int[] node_ids, int[] neighborhood_weights) {
+    	int count = this.maxStructure.topK(Math.min(k, neighborhood_weights.length), node_ids);
+    	for (int i = 0; i < count; i++) {
+    		neighborhood_weights[i] = this.maxStructure.getKey(node_ids[i]);
+    		node_ids[i] = this.ids[node_ids[i]];
+    	}
+    	return count;
     }
 
     /**
@@ -69,17 +250,83 @@ public class Graph {
      * Otherwise, the function returns -1.
      */
     public int getNeighborhoodWeight(int node_id) {
-        HashNode hashNode = this.table.get(node_id);
-        if (hashNode == null)
-        	return -1;
-        return hashNode.getHeapNode().getKey();
+    	long start = GraphMetrics.ENABLED ? System.nanoTime() : 0;
+        int slot = this.table.get(node_id);
+        int weight = (slot == -1) ? -1 : this.maxStructure.getKey(slot);
+        if (GraphMetrics.ENABLED)
+        	GraphMetrics.GET_NEIGHBORHOOD_WEIGHT.record(System.nanoTime() - start);
+        return weight;
+    }
+
+    /**
+     * given a node id of a node in the graph, this method returns the number of neighbors of that node.
+     * <p>
+     * Average Time Complexity: Θ(1).
+     * @param node_id – an id of a node.
+     * @return the degree of the node, or -1 if there is no node of that id.
+     */
+    public int degree(int node_id) {
+        int slot = this.table.get(node_id); // Θ(1) on average.
+        return (slot == -1) ? -1 : this.adjacency.getDegree(slot);
+    }
+
+    /**
+     * Applies an action to the id of every neighbor of the node of the given id, in no particular order,
+     * straight from the adjacency, without allocating. The action must not change the graph.
+     * <p>
+     * Average Time Complexity: Θ(deg(Node) + 1), plus the time of the actions.
+     * @param node_id – an id of a node.
+     * @param action – the action to apply to the id of each neighbor.
+     * @return returns 'true' if the node is in the graph, otherwise returns 'false'.
+     */
+    public boolean forEachNeighbor(int node_id, IntConsumer action) {
+        int slot = this.table.get(node_id); // Θ(1) on average.
+        if (slot == -1)
+        	return false;
+        for (int i = 0, degree = this.adjacency.getDegree(slot); i < degree; i++)
+        	action.accept(this.ids[this.adjacency.getNeighbor(slot, i)]);
+        return true;
+    }
+
+    /**
+     * Adds a node with no edges to the graph, if no node of its id is in the graph.
+     * The node gets the next slot; the per‐node arrays and the heap grow geometrically when they are full,
+     * and the hash table rehashes incrementally, so no single call pays for a full copy of the table.
+     * <p>
+     * Amortized Average Time Complexity: Θ(log(n)).
+     *
+     * @param node – the node to add.
+     * @return returns 'true' if the function added the node, otherwise returns 'false'.
+     */
+    public boolean addNode(Node node) {
+    	int id = node.getId(), slot = this.num_slots;
+    	if (this.table.get(id) != -1) // Θ(1) on average.
+    		return false;
+    	if (slot == this.ids.length) { // Θ(n), once per doubling.
+    		int capacity = Math.max(16, 2 * slot);
+    		this.nodes = Arrays.copyOf(this.nodes, capacity);
+    		this.ids = Arrays.copyOf(this.ids, capacity);
+    		this.weights = Arrays.copyOf(this.weights, capacity);
+    		this.adjacency.grow(capacity);
+    		this.deltas = null;
+    	}
+    	setNode(slot, node);
+    	this.ids[slot] = id;
+    	this.weights[slot] = node.getWeight();
+    	this.table.add(id, slot); // Θ(1) on average.
+    	this.maxStructure.insert(slot, node.getWeight()); // Θ(log(n)) in W.C.
+    	this.num_slots++;
+    	this.num_nodes++;
+    	if (this.log != null)
+    		this.log.addNode(id, node.getWeight()); // Θ(1) amortized.
+    	return true;
     }
 
     /**
      * This function adds an edge between the two nodes whose ids are specified.
      * If one of these nodes is not in the graph, the function does nothing.
      * The two nodes must be distinct; otherwise, the function does nothing.
-     * You may assume that if the two nodes are in the graph, there exists no edge between them prior to the call.
+     * If there already is an edge between them, the function does nothing; the edge index answers that in Θ(1).
      * <p>
      * Average Time Complexity: Θ(log(n)).
      *
@@ -90,24 +337,195 @@ public class Graph {
     public boolean addEdge(int node1_id, int node2_id) {
     	if (node1_id == node2_id)
     		return false;
-        HashNode hNode1 = this.table.get(node1_id); // Θ(1) on average.
-        HashNode hNode2 = this.table.get(node2_id); // Θ(1) on average.
-        if ((hNode1 == null) || (hNode2 == null))
+    	long start = GraphMetrics.ENABLED ? System.nanoTime() : 0;
+        int slot1 = this.table.get(node1_id); // Θ(1) on average.
+        int slot2 = this.table.get(node2_id); // Θ(1) on average.
+        if ((slot1 == -1) || (slot2 == -1) || !link(slot1, slot2)) // Θ(1) amortized, on average.
         	return false;
-        GraphNode gNode1 = hNode1.getGraphNode();
-        GraphNode gNode2 = hNode2.getGraphNode();
-        NeighborNode neighbor1 = new NeighborNode(null, gNode2);
-        NeighborNode neighbor2 = new NeighborNode(null, gNode1);
-        gNode1.getNeighbors().insertFirst(neighbor1);
-        gNode2.getNeighbors().insertFirst(neighbor2);
-        neighbor1.setNeighbor(gNode2.getNeighbors().getFirst());
-        neighbor2.setNeighbor(gNode1.getNeighbors().getFirst());
-        this.maxHeap.increaseKey(hNode1.getHeapNode().getIndex(), gNode2.getWeight()); // Θ(log(n)) in W.C.
-        this.maxHeap.increaseKey(hNode2.getHeapNode().getIndex(), gNode1.getWeight()); // Θ(log(n)) in W.C.
+        this.maxStructure.increaseKey(slot1, this.weights[slot2]); // Θ(log(n)) in W.C.
+        this.maxStructure.increaseKey(slot2, this.weights[slot1]); // Θ(log(n)) in W.C.
     	this.num_edges++;
+    	if (this.log != null)
+    		this.log.addEdge(node1_id, node2_id); // Θ(1) amortized.
+    	if (GraphMetrics.ENABLED)
+    		GraphMetrics.ADD_EDGE.record(System.nanoTime() - start);
+        return true;
+    }
+
+    /**
+     * Adds the edges (src[i], dst[i]) for every i, each one under the same rules as addEdge.
+     * If the batch is large compared to the graph, the neighborhood weights are all updated first and the
+     * heap is rebuilt once at the end, instead of sifting it up twice per edge.
+     * <p>
+     * Average Time Complexity: Θ(min(m log(n), m + n)), where m is the size of the batch.
+     *
+     * @param src – the ids of the first nodes.
+     * @param dst – the ids of the second nodes, of the same length as src.
+     * @return an array whose i-th entry is 'true' if the function added the i-th edge, otherwise 'false'.
+     */
+    public boolean[] addEdges(int[] src, int[] dst) {
+    	if (src.length != dst.length)
+    		throw new IllegalArgumentException("src and dst must have the same length");
+    	boolean[] added = new boolean[src.length];
+    	addEdges(src, dst, src.length, added);
+    	return added;
+    }
+
+    /**
+     * Adds the edges (src[i], dst[i]) for every i < count, as addEdges(src, dst) does, without allocating,
+     * so the arrays can be reused from batch to batch.
+     * <p>
+     * Average Time Complexity: Θ(min(m log(n), m + n)), where m is count.
+     *
+     * @param src – the ids of the first nodes.
+     * @param dst – the ids of the second nodes.
+     * @param count – the number of edges, at most the length of both arrays.
+     * @return the number of edges the function added.
+     */
+    public int addEdges(int[] src, int[] dst, int count) {
+    	if ((count > src.length) || (count > dst.length))
+    		throw new IllegalArgumentException("count exceeds the length of src or dst: " + count);
+    	return addEdges(src, dst, count, null);
+    }
+
+    /**
+     * Adds the edges (src[i], dst[i]) for every i < count.
+     * <p>
+     * Average Time Complexity: Θ(min(m log(n), m + n)), where m is count.
+     *
+     * @param src
+     * @param dst
+     * @param count
+     * @param added – set to 'true' at the indices of the added edges, or null.
+     * @return the number of edges the function added.
+     */
+    private int addEdges(int[] src, int[] dst, int count, boolean[] added) {
+    	int slot1, slot2, total = 0;
+    	boolean rebuild = this.maxStructure.isRebuildCheaper(count);
+    	for (int i = 0; i < count; i++) {
+    		if (src[i] == dst[i])
+    			continue;
+    		slot1 = this.table.get(src[i]); // Θ(1) on average.
+    		slot2 = this.table.get(dst[i]); // Θ(1) on average.
+    		if ((slot1 == -1) || (slot2 == -1) || !link(slot1, slot2)) // Θ(1) amortized, on average.
+    			continue;
+    		if (rebuild) {
+    			this.maxStructure.addToKey(slot1, this.weights[slot2]); // Θ(1).
+    			this.maxStructure.addToKey(slot2, this.weights[slot1]); // Θ(1).
+    		}
+    		else {
+    			this.maxStructure.increaseKey(slot1, this.weights[slot2]); // Θ(log(n)) in W.C.
+    			this.maxStructure.increaseKey(slot2, this.weights[slot1]); // Θ(log(n)) in W.C.
+    		}
+    		this.num_edges++;
+    		total++;
+    		if (added != null)
+    			added[i] = true;
+    		if (this.log != null)
+    			this.log.addEdge(src[i], dst[i]); // Θ(1) amortized.
+    	}
+    	if (rebuild)
+    		this.maxStructure.rebuild(); // Θ(n).
+    	return total;
+    }
+
+    /**
+     * Removes the edge between the two nodes whose ids are specified, if it exists.
+     * The edge index gives the entry of the edge in the adjacency, so it is unlinked from both sides in Θ(1),
+     * without scanning the neighbors of either node.
+     * <p>
+     * Average Time Complexity: Θ(log(n)).
+     *
+     * @param node1_id – the id of the first node.
+     * @param node2_id – the id of the second node.
+     * @return returns 'true' if the function removed an edge, otherwise returns 'false'.
+     */
+    public boolean removeEdge(int node1_id, int node2_id) {
+    	if (node1_id == node2_id)
+    		return false;
+        int slot1 = this.table.get(node1_id); // Θ(1) on average.
+        int slot2 = this.table.get(node2_id); // Θ(1) on average.
+        if ((slot1 == -1) || (slot2 == -1))
+        	return false;
+        int lo = Math.min(slot1, slot2), i = this.edges.get(lo, Math.max(slot1, slot2)); // Θ(1) on average.
+        if (i == -1)
+        	return false;
+        unlink(lo, i); // Θ(1) on average.
+        this.maxStructure.decreaseKey(slot1, this.weights[slot2]); // Θ(log(n)) in W.C.
+        this.maxStructure.decreaseKey(slot2, this.weights[slot1]); // Θ(log(n)) in W.C.
+    	this.num_edges--;
+    	if (this.log != null)
+    		this.log.removeEdge(node1_id, node2_id); // Θ(1) amortized.
         return true;
     }
 
+    /**
+     * Returns whether there is an edge between the two nodes whose ids are specified.
+     * <p>
+     * Average Time Complexity: Θ(1).
+     *
+     * @param node1_id – the id of the first node.
+     * @param node2_id – the id of the second node.
+     * @return returns 'true' if both nodes are in the graph and there is an edge between them, otherwise returns 'false'.
+     */
+    public boolean hasEdge(int node1_id, int node2_id) {
+        int slot1 = this.table.get(node1_id); // Θ(1) on average.
+        int slot2 = this.table.get(node2_id); // Θ(1) on average.
+        if ((slot1 == -1) || (slot2 == -1) || (slot1 == slot2))
+        	return false;
+        return this.edges.get(Math.min(slot1, slot2), Math.max(slot1, slot2)) != -1; // Θ(1) on average.
+    }
+
+    /**
+     * Adds an edge between two distinct slots to the adjacency and to the edge index, unless it is there.
+     * <p>
+     * Amortized Average Time Complexity: Θ(1).
+     * @param slot1
+     * @param slot2
+     * @return 'true' if the edge was added, 'false' if it was already there.
+     */
+    private boolean link(int slot1, int slot2) {
+    	int lo = Math.min(slot1, slot2);
+    	if (!this.edges.add(lo, Math.max(slot1, slot2), this.adjacency.getDegree(lo))) // the entry is appended to the range of lo.
+    		return false;
+    	this.adjacency.link(slot1, slot2);
+    	return true;
+    }
+
+    /**
+     * Removes the edge of the i-th entry of the slot from the adjacency and from the edge index, and updates
+     * the index of the entries the adjacency moved into the holes.
+     * <p>
+     * Average Time Complexity: Θ(1).
+     * @param slot
+     * @param i – the position of the entry, 0 <= i < deg(slot).
+     * @return the slot of the removed neighbor.
+     */
+    private int unlink(int slot, int i) {
+    	int neighbor = this.adjacency.getNeighbor(slot, i), position = this.adjacency.getPosition(slot, i);
+    	this.edges.remove(Math.min(slot, neighbor), Math.max(slot, neighbor));
+    	this.adjacency.unlink(slot, i);
+    	reindex(slot, i);
+    	reindex(neighbor, position);
+    	return neighbor;
+    }
+
+    /**
+     * Updates the edge index after the last entry of the slot was moved to position i, if it was. Only the
+     * entries in the range of the smaller slot of an edge are indexed.
+     * <p>
+     * Average Time Complexity: Θ(1).
+     * @param slot
+     * @param i
+     */
+    private void reindex(int slot, int i) {
+    	if (i == this.adjacency.getDegree(slot)) // the removed entry was the last one.
+    		return;
+    	int neighbor = this.adjacency.getNeighbor(slot, i);
+    	if (slot < neighbor)
+    		this.edges.set(slot, neighbor, i);
+    }
+
     /**
      * Given the id of a node in the graph, deletes the node of that id from the graph, if it exists.
      * <p>
@@ -117,30 +535,254 @@ public class Graph {
      * @return returns 'true' if the function deleted a node, otherwise returns 'false'
      */
     public boolean deleteNode(int node_id) {
-        HashNode hashNode = this.table.get(node_id); // Θ(1) on average.
-        if (hashNode == null)
+    	long start = GraphMetrics.ENABLED ? System.nanoTime() : 0;
+        int slot = this.table.get(node_id); // Θ(1) on average.
+        if (slot == -1)
         	return false;
-        this.table.remove(hashNode); // Θ(1) on average.
-        this.maxHeap.delete(hashNode.getHeapNode().getIndex()); // Θ(log(n)) in W.C.
-        GraphNode gNode = hashNode.getGraphNode();
-        int weight = gNode.getWeight(), pos;
-        DLLNode<NeighborNode> listNode = gNode.getNeighbors().getFirst();
-        NeighborNode neighbor;
-        GraphNode gNeighbor;
-        while (listNode != null) { // Θ(deg(Node) + 1) in W.C.
-        	neighbor = listNode.getData();
-        	gNeighbor = neighbor.getNeighborData();
-        	gNeighbor.getNeighbors().delete(neighbor.getNeighbor()); // Θ(1).
-        	HashNode new_hashNode = this.table.get(gNeighbor.getId());
-        	pos = new_hashNode.getHeapNode().getIndex(); // Θ(1) on average.
-        	this.maxHeap.decreaseKey(pos, weight); // Θ(log(n)) in W.C.
-        	listNode = listNode.getNext();
+        this.table.remove(node_id); // Θ(1) on average.
+        this.maxStructure.delete(slot); // Θ(log(n)) in W.C.
+        int weight = this.weights[slot], neighborSlot, degree = this.adjacency.getDegree(slot);
+        for (int i = degree - 1; i >= 0; i--) { // Θ(deg(Node) + 1) in W.C.
+        	neighborSlot = unlink(slot, i); // Θ(1) on average.
+        	this.maxStructure.decreaseKey(neighborSlot, weight); // Θ(log(n)) in W.C.
         	this.num_edges--;
         }
-        this.graph[gNode.getIndex()] = null;
+        this.adjacency.release(slot);
+        setNode(slot, null);
     	this.num_nodes--;
+    	if (this.log != null)
+    		this.log.deleteNode(node_id); // Θ(1) amortized.
+    	if (GraphMetrics.ENABLED) {
+    		GraphMetrics.ADJACENCY_VISITS.record(degree);
+    		GraphMetrics.DELETE_NODE.record(System.nanoTime() - start);
+    	}
         return true;
     }
+
+    /**
+     * Deletes the nodes of the given ids from the graph, each one under the same rules as deleteNode.
+     * The weight lost by every surviving neighbor is summed over the whole batch, so each of them is sifted
+     * down once, or the heap is rebuilt once if enough of it has changed.
+     * <p>
+     * Average Time Complexity: Θ(d + min(k log(n), n)), where d is the sum of the degrees of the deleted
+     * nodes and k is the number of deleted and affected nodes.
+     *
+     * @param node_ids – the ids of the nodes to delete.
+     * @return an array whose i-th entry is 'true' if the function deleted the i-th node, otherwise 'false'.
+     */
+    public boolean[] deleteNodes(int[] node_ids) {
+    	int d = node_ids.length, count = 0, touchedCount = 0, slot, neighborSlot, weight;
+    	boolean[] deleted = new boolean[d];
+    	int[] slots = new int[d];
+    	for (int i = 0; i < d; i++) {
+    		slot = this.table.get(node_ids[i]); // Θ(1) on average.
+    		if (slot == -1)
+    			continue;
+    		this.table.remove(node_ids[i]); // Θ(1) on average.
+    		setNode(slot, null);
+    		slots[count++] = slot;
+    		deleted[i] = true;
+    		if (this.log != null)
+    			this.log.deleteNode(node_ids[i]); // Θ(1) amortized.
+    	}
+    	if (count == 0)
+    		return deleted;
+    	if (this.deltas == null)
+    		this.deltas = new int[this.nodes.length];
+    	int[] touched = new int[16];
+    	for (int j = 0; j < count; j++) { // Θ(d).
+    		slot = slots[j];
+    		weight = this.weights[slot];
+    		if (GraphMetrics.ENABLED)
+    			GraphMetrics.ADJACENCY_VISITS.record(this.adjacency.getDegree(slot));
+    		for (int i = this.adjacency.getDegree(slot) - 1; i >= 0; i--) {
+    			neighborSlot = unlink(slot, i); // Θ(1) on average.
+    			this.num_edges--;
+    			if ((this.nodes[neighborSlot] == null) || (weight == 0))
+    				continue;
+    			if (this.deltas[neighborSlot] == 0) {
+    				if (touchedCount == touched.length)
+    					touched = Arrays.copyOf(touched, 2 * touchedCount);
+    				touched[touchedCount++] = neighborSlot;
+    			}
+    			this.deltas[neighborSlot] += weight;
+    		}
+    		this.adjacency.release(slot);
+    	}
+    	boolean rebuild = this.maxStructure.isRebuildCheaper(count + touchedCount);
+    	for (int j = 0; j < count; j++) {
+    		if (rebuild)
+    			this.maxStructure.detach(slots[j]); // Θ(1).
+    		else
+    			this.maxStructure.delete(slots[j]); // Θ(log(n)) in W.C.
+    	}
+    	for (int j = 0; j < touchedCount; j++) {
+    		neighborSlot = touched[j];
+    		weight = this.deltas[neighborSlot];
+    		this.deltas[neighborSlot] = 0;
+    		if (rebuild)
+    			this.maxStructure.addToKey(neighborSlot, -weight); // Θ(1).
+    		else
+    			this.maxStructure.decreaseKey(neighborSlot, weight); // Θ(log(n)) in W.C.
+    	}
+    	if (rebuild)
+    		this.maxStructure.rebuild(); // Θ(n).
+    	this.num_nodes -= count;
+    	return deleted;
+    }
+
+    /**
+     * Given the id of a node in the graph, changes the weight of the node of that id, if it exists.
+     * The difference is added to the neighborhood weight of the node and of each of its neighbors, in place,
+     * so the edges are kept. Since Node is immutable, the node is replaced by a new Node object with the same
+     * id and the new weight.
+     * <p>
+     * Average Time Complexity: Θ((deg(Node) + 1)log(n)).
+     *
+     * @param node_id – the id of the node.
+     * @param weight – the new weight.
+     * @return returns 'true' if the function found the node, otherwise returns 'false'.
+     */
+    public boolean updateWeight(int node_id, int weight) {
+        int slot = this.table.get(node_id); // Θ(1) on average.
+        if (slot == -1)
+        	return false;
+        int delta = weight - this.weights[slot];
+        if (delta != 0) {
+        	this.weights[slot] = weight;
+        	setNode(slot, new Node(node_id, weight));
+        	changeKey(slot, delta); // Θ(log(n)) in W.C.
+        	for (int i = this.adjacency.getDegree(slot) - 1; i >= 0; i--) // Θ(deg(Node)) in W.C.
+        		changeKey(this.adjacency.getNeighbor(slot, i), delta); // Θ(log(n)) in W.C.
+        }
+    	if (this.log != null)
+    		this.log.updateWeight(node_id, weight); // Θ(1) amortized.
+        return true;
+    }
+
+    /**
+     * Changes the weights of the nodes of the given ids, each one under the same rules as updateWeight; if an
+     * id repeats, its last weight wins. The changes of the neighborhood weights are summed over the whole
+     * batch, so every affected node is sifted once, or the heap is rebuilt once if enough of it has changed.
+     * <p>
+     * Average Time Complexity: Θ(d + min(k log(n), n)), where d is the sum of the degrees of the updated
+     * nodes and k is the number of affected nodes.
+     *
+     * @param node_ids – the ids of the nodes.
+     * @param weights – the new weights, of the same length as node_ids.
+     * @return an array whose i-th entry is 'true' if the function found the i-th node, otherwise 'false'.
+     */
+    public boolean[] updateWeights(int[] node_ids, int[] weights) {
+    	if (node_ids.length != weights.length)
+    		throw new IllegalArgumentException("node_ids and weights must have the same length");
+    	int touchedCount = 0, slot, delta, neighborSlot;
+    	boolean[] found = new boolean[node_ids.length];
+    	if (this.deltas == null)
+    		this.deltas = new int[this.nodes.length];
+    	int[] touched = new int[16];
+    	for (int j = 0; j < node_ids.length; j++) { // Θ(d) on average.
+    		slot = this.table.get(node_ids[j]); // Θ(1) on average.
+    		if (slot == -1)
+    			continue;
+    		found[j] = true;
+    		if (this.log != null)
+    			this.log.updateWeight(node_ids[j], weights[j]); // Θ(1) amortized.
+    		delta = weights[j] - this.weights[slot];
+    		if (delta == 0)
+    			continue;
+    		this.weights[slot] = weights[j];
+    		setNode(slot, new Node(node_ids[j], weights[j]));
+    		for (int i = -1; i < this.adjacency.getDegree(slot); i++) { // the node itself, then its neighbors.
+    			neighborSlot = (i == -1) ? slot : this.adjacency.getNeighbor(slot, i);
+    			if (this.deltas[neighborSlot] == 0) {
+    				if (touchedCount == touched.length)
+    					touched = Arrays.copyOf(touched, 2 * touchedCount);
+    				touched[touchedCount++] = neighborSlot;
+    			}
+    			this.deltas[neighborSlot] += delta;
+    		}
+    	}
+    	boolean rebuild = this.maxStructure.isRebuildCheaper(touchedCount);
+    	for (int j = 0; j < touchedCount; j++) { // a slot whose delta came back to 0 may be listed twice.
+    		slot = touched[j];
+    		delta = this.deltas[slot];
+    		this.deltas[slot] = 0;
+    		if (rebuild)
+    			this.maxStructure.addToKey(slot, delta); // Θ(1).
+    		else
+    			changeKey(slot, delta); // Θ(log(n)) in W.C.
+    	}
+    	if (rebuild)
+    		this.maxStructure.rebuild(); // Θ(n).
+    	return found;
+    }
+
+    /**
+     * Sets the node of a slot, after saving its old node for the open snapshots.
+     * <p>
+     * Time Complexity: Θ(1), plus the copy of a page once per page and open snapshot.
+     * @param slot
+     * @param node – the node, or null once it is deleted.
+     */
+    private void setNode(int slot, Node node) {
+    	if (this.cow != null)
+    		this.cow.save(this.nodes, slot);
+    	this.nodes[slot] = node;
+    }
+
+    /**
+     * Adds a difference, of either sign, to the neighborhood weight of a slot.
+     * <p>
+     * Time Complexity: Θ(log(n)) in W.C.
+     * @param slot
+     * @param delta
+     */
+    private void changeKey(int slot, int delta) {
+    	if (delta > 0)
+    		this.maxStructure.increaseKey(slot, delta);
+    	else if (delta < 0)
+    		this.maxStructure.decreaseKey(slot, -delta);
+    }
+	
+	/**
+	 * Attaches an operation log, to which every later successful mutation is appended, or detaches it.
+	 * <p>
+     * Time Complexity: Θ(1).
+	 * @param log – the log, or null to detach the current one.
+	 */
+	public void setLog(OperationLog log) {
+		this.log = log;
+	}
+	
+	/**
+	 * @return the attached operation log, or null if there is none.
+	 */
+	public OperationLog getLog() {
+		return this.log;
+	}
+	
+	/**
+	 * Turns the lazy heap maintenance on or off.
+	 * In lazy mode, addEdge and deleteNode only update the neighborhood weights and mark the changed nodes,
+	 * and the heap is repaired by the next maxNeighborhoodWeight or topK query. getNeighborhoodWeight
+	 * stays exact. Turning the mode off repairs the heap right away.
+	 * <p>
+     * Time Complexity: O(min(k log(n), n)) when turned off, where k is the number of marked nodes, otherwise Θ(1).
+	 * @param lazy – 'true' for lazy mode, 'false' for eager mode.
+	 */
+	public void setLazy(boolean lazy) {
+		this.maxStructure.setLazy(lazy);
+	}
+	
+	/**
+	 * Returns whether the graph is in lazy mode.
+	 * <p>
+     * Time Complexity: Θ(1).
+	 * @return 'true' if the graph is in lazy mode, otherwise 'false'.
+	 */
+	public boolean isLazy() {
+		return this.maxStructure.isLazy();
+	}
 	
 	/**
 	 * Returns the number of nodes currently in the graph.
@@ -162,6 +804,200 @@ public class Graph {
 		return this.num_edges;
 	}
 
+	/**
+	 * Takes a read‐only view of the graph as it is now, which any number of threads can read while this
+	 * graph keeps changing. Nothing is copied up front: the view shares the arrays of the graph, and from
+	 * now on the graph copies a page of an array into the view right before it first writes to that page,
+	 * so the writes cost a page copy the first time only. The view must be taken by the thread that
+	 * changes the graph, and closed once it is no longer read, or the graph keeps copying into it.
+	 * <p>
+	 * Time Complexity: Θ((N + m) / B), for the empty page tables, where B = 4096 is the page size.
+	 * @return the view.
+	 */
+	public Snapshot snapshot() {
+		if (this.cow == null) {
+			this.cow = new CopyOnWrite();
+			this.adjacency.cow = this.cow;
+			this.maxStructure.setCopyOnWrite(this.cow);
+			this.table.cow = this.cow;
+		}
+		Snapshot snapshot = new Snapshot(this);
+		this.cow.open(snapshot);
+		return snapshot;
+	}
+
+	/**
+	 * Saves the graph to a binary snapshot file, which load maps back.
+	 * All the ints are little‐endian. The layout (version 1) is a header of 16 ints: the magic number, the
+	 * version, the number of slots N, the numbers of nodes and edges, the heap arity (TOURNAMENT for a
+	 * tournament tree) and length, the pool size P, the hash table length T, its multiplier and its size,
+	 * and 5 reserved zeros; then the sections ids[N], weights[N], keys[N], the heap order (the slots in
+	 * increasing order for a tournament tree), the adjacency offsets[N] and degrees[N], targets[P] and
+	 * positions[P], and the hash table entries[T]. The adjacency is written compactly, every range holding
+	 * exactly the degree of its slot. In lazy mode, the heap is repaired first, and a pending rehash of the
+	 * hash table is completed.
+	 * <p>
+	 * The snapshot is written to a temporary file next to path, forced to the disk, and then atomically moved
+	 * over path, so a save that fails or crashes midway leaves the previous snapshot intact.
+	 * <p>
+	 * Time Complexity: Θ(N + m).
+	 * @param path – the file to write, replaced if it exists.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void save(Path path) throws IOException {
+		this.maxStructure.flush();
+		this.table.finishRehash();
+		int N = this.num_slots, pool = 2 * this.num_edges, offset = 0;
+		Adjacency adjacency = this.adjacency;
+		Hashtable table = this.table;
+		int[] header = {MAGIC, VERSION, N, this.num_nodes, this.num_edges, this.maxStructure.getArity(),
+				this.maxStructure.getLength(), pool, table.entries.length, table.a, table.size, 0, 0, 0, 0, 0};
+		Path absolute = path.toAbsolutePath();
+		Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				IntWriter out = new IntWriter(channel);
+				out.write(header, 0, HEADER);
+				out.write(this.ids, 0, N);
+				out.write(this.weights, 0, N);
+				out.write(this.maxStructure.getKeys(), 0, N);
+				out.write(this.maxStructure.getSlots(), 0, this.maxStructure.getLength());
+				for (int slot = 0; slot < N; slot++) {
+					out.write(offset);
+					offset += adjacency.degrees[slot];
+				}
+				out.write(adjacency.degrees, 0, N);
+				for (int slot = 0; slot < N; slot++)
+					out.write(adjacency.targets, adjacency.offsets[slot], adjacency.degrees[slot]);
+				for (int slot = 0; slot < N; slot++)
+					out.write(adjacency.positions, adjacency.offsets[slot], adjacency.degrees[slot]);
+				out.write(table.entries, 0, table.entries.length);
+				out.flush();
+				channel.force(true);
+			}
+			Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+	}
+
+	/**
+	 * Loads a graph from a snapshot file written by save. Every section is mapped into memory and copied in
+	 * bulk into its array; the heap order and the hash table are adopted as they are, so nothing is
+	 * re‐heapified or replayed; only a tournament tree recomputes its winners from its slots. The edge index
+	 * is not saved, and is rebuilt from the adjacency in parallel.
+	 * The nodes are new Node objects with the saved ids and weights.
+	 * <p>
+	 * Average Time Complexity: Θ(N + m).
+	 * @param path – the file to read.
+	 * @return the graph.
+	 * @throws IOException if the file cannot be read or is not a snapshot of a known version.
+	 */
+	public static Graph load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			IntReader in = new IntReader(channel);
+			if (channel.size() < 4L * HEADER)
+				throw new IOException("not a graph snapshot: " + path);
+			int[] header = in.read(HEADER);
+			if (header[0] != MAGIC)
+				throw new IOException("not a graph snapshot: " + path);
+			if (header[1] != VERSION)
+				throw new IOException("unsupported snapshot version " + header[1] + ": " + path);
+			int N = header[2], heapLength = header[6], pool = header[7], tableLength = header[8];
+			if (channel.size() < 4L * (HEADER + 5L * N + heapLength + 2L * pool + tableLength))
+				throw new IOException("truncated graph snapshot: " + path);
+			Graph graph = new Graph();
+			graph.num_nodes = header[3];
+			graph.num_slots = N;
+			graph.num_edges = header[4];
+			graph.ids = in.read(N);
+			graph.weights = in.read(N);
+			int[] keys = in.read(N), heap = new int[N];
+			in.read(heap, heapLength);
+			graph.maxStructure = (header[5] == TOURNAMENT) ? new TournamentTree(keys, heap, heapLength)
+					: new MaxHeap(keys, heap, heapLength, header[5]);
+			graph.adjacency = new Adjacency(in.read(N), in.read(N), in.read(pool), in.read(pool));
+			graph.table = new Hashtable(in.read(tableLength), header[9], header[10]);
+			graph.edges = new EdgeIndex(graph.num_edges);
+			graph.edges.index(graph.adjacency, N, true);
+			graph.nodes = new Node[N];
+			for (int slot = 0; slot < N; slot++)
+				if (graph.maxStructure.contains(slot))
+					graph.nodes[slot] = new Node(graph.ids[slot], graph.weights[slot]);
+			return graph;
+		}
+	}
+
+	/**
+	 * This class writes ints to a file channel through a direct buffer, little‐endian.
+	 */
+	private static class IntWriter {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+		private final IntBuffer ints = this.buffer.asIntBuffer();
+
+		public IntWriter(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		public void write(int value) throws IOException {
+			if (!this.ints.hasRemaining())
+				flush();
+			this.ints.put(value);
+		}
+
+		public void write(int[] values, int from, int count) throws IOException {
+			int n;
+			while (count > 0) {
+				if (!this.ints.hasRemaining())
+					flush();
+				n = Math.min(count, this.ints.remaining());
+				this.ints.put(values, from, n);
+				from += n;
+				count -= n;
+			}
+		}
+
+		public void flush() throws IOException {
+			this.buffer.limit(4 * this.ints.position()).position(0);
+			while (this.buffer.hasRemaining())
+				this.channel.write(this.buffer);
+			this.buffer.clear();
+			this.ints.clear();
+		}
+	}
+
+	/**
+	 * This class reads ints from a file channel by mapping it, little‐endian, one chunk of at most 1GB at a time.
+	 */
+	private static class IntReader {
+		private static final int CHUNK = 1 << 28; // ints per mapping.
+		private final FileChannel channel;
+		private long position = 0;
+
+		public IntReader(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		public int[] read(int count) throws IOException {
+			int[] values = new int[count];
+			read(values, count);
+			return values;
+		}
+
+		public void read(int[] values, int count) throws IOException {
+			int n;
+			for (int from = 0; from < count; from += n) {
+				n = Math.min(count - from, CHUNK);
+				this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, 4L * n)
+						.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values, from, n);
+				this.position += 4L * n;
+			}
+		}
+	}
+
     /**
      * This class represents a node in the graph.
      */
@@ -203,713 +1039,2517 @@ public class Graph {
     }
     
     /**
-     * This class represents a hash table chaining with DLL and universal hashing.
+     * This class represents a reusable cursor over the neighbors of a node, which copies their ids into a
+     * buffer given by the caller, a chunk at a time, so a traversal allocates nothing after the cursor is
+     * created. The graph must not be changed between reset and the last call of next.
      */
-    public class Hashtable {
-    	private final int prime = (int) (Math.pow(10, 9) + 9);
-    	private DoublyLinkedList<HashNode>[] arr;
-    	private final HashFunction hashFunc;
-    	private int size;
-    	
-		/**
-         * Constructs a hash table with DLL chaining and hash function.
-		 * <p>
-	     * Time Complexity: Θ(size).
-		 * @param size
-		 */
-		@SuppressWarnings("unchecked")
-		public Hashtable(int size) {
-			this.hashFunc = new HashFunction(this.prime, size);
-			this.arr = (DoublyLinkedList<HashNode>[]) new DoublyLinkedList<?>[size];
-			for (int i = 0; i < size; i++)
-				this.arr[i] = new DoublyLinkedList<>();
-			this.size = 0;
-		}
+    public static class NeighborCursor {
+    	private final Graph graph;
+    	private int slot = -1; // the slot of the current node, or -1 if there is none.
+    	private int position; // the position of the next neighbor in the range of the slot.
 
 		/**
-         * Returns the size of the hash table.
+         * Creates a cursor over the neighbors of the nodes of a graph, positioned at no node.
 		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @return the size
+		 * @param graph
 		 */
-		public int getSize() {
-			return this.size;
+		public NeighborCursor(Graph graph) {
+			this.graph = graph;
 		}
-		
+
 		/**
-         * Returns the HashNode that corresponds to the id, if it exists.
+         * Positions the cursor at the first neighbor of the node of the given id.
 		 * <p>
 	     * Average Time Complexity: Θ(1).
-		 * @param node_id
-		 * @return the HashNode that corresponds to the id.
+		 * @param node_id – an id of a node.
+		 * @return returns 'true' if the node is in the graph, otherwise returns 'false' and the cursor is empty.
 		 */
-		public HashNode get(int node_id) {
-			int pos = this.hashFunc.hash(node_id);
-			DLLNode<HashNode> tmp = this.arr[pos].get(node_id);
-			if (tmp != null)
-				return tmp.getData();
-			return null;
+		public boolean reset(int node_id) {
+			this.slot = this.graph.table.get(node_id); // Θ(1) on average.
+			this.position = 0;
+			return this.slot != -1;
 		}
-		
+
 		/**
-         * Adds the HashNode to the hash table.
+         * Copies the ids of the next neighbors of the node into the buffer, from its start.
 		 * <p>
-	     * Average Time Complexity: Θ(1).
-		 * @param hashNode
+	     * Time Complexity: Θ(count).
+		 * @param buffer – the buffer for the ids.
+		 * @return the number count of ids copied, at most the length of the buffer, and 0 once every neighbor
+		 * has been copied.
 		 */
-		public void add(HashNode hashNode) {
-			int node_id = hashNode.getId();
-			int pos = this.hashFunc.hash(node_id);
-			if (this.arr[pos].get(node_id) == null) {
-				this.arr[pos].insertFirst(hashNode);
-				this.size++;
-			}
+		public int next(int[] buffer) {
+			if (this.slot == -1)
+				return 0;
+			Adjacency adjacency = this.graph.adjacency;
+			int[] ids = this.graph.ids;
+			int count = Math.min(buffer.length, adjacency.getDegree(this.slot) - this.position);
+			for (int i = 0; i < count; i++)
+				buffer[i] = ids[adjacency.getNeighbor(this.slot, this.position + i)];
+			this.position += count;
+			return count;
 		}
-		
+    }
+    
+    /**
+     * This class represents a read‐only view of a graph at the moment it was taken (see Graph.snapshot).
+     * The view shares the arrays of the graph, and reads an entry from the copy of its page if the graph has
+     * written to that page since, and from the shared array otherwise. The graph publishes a copy before it
+     * writes to the page, and the view reads a shared entry before it checks for a copy again, so a read that
+     * races with a write still returns the old value. The view can be read by any number of threads.
+     */
+    public static class Snapshot implements AutoCloseable {
+    	private final CopyOnWrite cow;
+    	private final int num_nodes, num_edges, num_slots;
+    	private final int[] ids; // shared; the graph only writes the ids of new slots.
+    	private final Pages nodes, keys, offsets, degrees, targets, entries, old;
+    	private final int mask, shift, a, oldMask, oldShift; // the state of the hash table.
+
 		/**
-         * Removes the HashNode from the hash table, if it exists.
+         * Takes a view of the graph as it is now.
 		 * <p>
-	     * Average Time Complexity: Θ(1).
-		 * @param hashNode
+	     * Time Complexity: Θ((N + m) / B), where B is the page size.
+		 * @param graph
 		 */
-		public void remove(HashNode hashNode) {
-			int node_id = hashNode.getId();
-			int pos = this.hashFunc.hash(node_id);
-			DLLNode<HashNode> pointer = this.arr[pos].get(node_id);
-			if (pointer != null) {
-				this.arr[pos].delete(pointer);
-				this.size--;
-			}
+		private Snapshot(Graph graph) {
+			Hashtable table = graph.table;
+			Adjacency adjacency = graph.adjacency;
+			this.cow = graph.cow;
+			this.num_nodes = graph.num_nodes;
+			this.num_edges = graph.num_edges;
+			this.num_slots = graph.num_slots;
+			this.ids = graph.ids;
+			this.nodes = new Pages(graph.nodes);
+			this.keys = new Pages(graph.maxStructure.getKeys());
+			this.offsets = new Pages(adjacency.offsets);
+			this.degrees = new Pages(adjacency.degrees);
+			this.targets = new Pages(adjacency.targets);
+			this.entries = new Pages(table.entries);
+			this.old = (table.old == null) ? null : new Pages(table.old);
+			this.mask = table.mask;
+			this.shift = table.shift;
+			this.a = table.a;
+			this.oldMask = table.oldMask;
+			this.oldShift = table.oldShift;
 		}
-	    
-	    /**
-	     * This class represents a hash function for the hash table.
+
+		/**
+         * Returns the number of nodes in the view.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @return the number of nodes.
+		 */
+		public int getNumNodes() {
+			return this.num_nodes;
+		}
+
+		/**
+         * Returns the number of edges in the view.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @return the number of edges.
+		 */
+		public int getNumEdges() {
+			return this.num_edges;
+		}
+
+		/**
+         * Returns the neighborhood weight of the node of the given id in the view.
+		 * <p>
+	     * Average Time Complexity: Θ(1).
+		 * @param node_id – an id of a node.
+		 * @return the neighborhood weight, or -1 if there is no node of that id.
+		 */
+		public int getNeighborhoodWeight(int node_id) {
+			int slot = getSlot(node_id); // Θ(1) on average.
+			return (slot == -1) ? -1 : this.keys.getInt(slot);
+		}
+
+		/**
+         * Returns the number of neighbors of the node of the given id in the view.
+		 * <p>
+	     * Average Time Complexity: Θ(1).
+		 * @param node_id – an id of a node.
+		 * @return the degree, or -1 if there is no node of that id.
+		 */
+		public int degree(int node_id) {
+			int slot = getSlot(node_id); // Θ(1) on average.
+			return (slot == -1) ? -1 : this.degrees.getInt(slot);
+		}
+
+		/**
+         * Applies an action to the id of every neighbor of the node of the given id in the view.
+		 * <p>
+	     * Average Time Complexity: Θ(deg(Node) + 1), plus the time of the actions.
+		 * @param node_id – an id of a node.
+		 * @param action – the action to apply to the id of each neighbor.
+		 * @return 'true' if the node is in the view, otherwise 'false'.
+		 */
+		public boolean forEachNeighbor(int node_id, IntConsumer action) {
+			int slot = getSlot(node_id); // Θ(1) on average.
+			if (slot == -1)
+				return false;
+			for (int i = this.offsets.getInt(slot), end = i + this.degrees.getInt(slot); i < end; i++)
+				action.accept(this.ids[this.targets.getInt(i)]);
+			return true;
+		}
+
+		/**
+         * Applies an action to every node of the view and its neighborhood weight, in the order of the slots.
+		 * <p>
+	     * Time Complexity: Θ(N), plus the time of the actions.
+		 * @param action – the action to apply to each node and its neighborhood weight.
+		 */
+		public void forEachNode(ObjIntConsumer<Node> action) {
+			Node node;
+			for (int slot = 0; slot < this.num_slots; slot++) {
+				node = this.nodes.getNode(slot);
+				if (node != null)
+					action.accept(node, this.keys.getInt(slot));
+			}
+		}
+
+		/**
+         * Closes the view, so the graph stops copying pages into it. The view must not be read afterwards.
+		 * <p>
+	     * Time Complexity: Θ(k), where k is the number of open views.
+		 */
+		@Override
+		public void close() {
+			this.cow.close(this);
+		}
+
+		/**
+         * Saves the page of an entry of an array, if the view reads that array and has no copy of the page yet.
+		 * <p>
+	     * Time Complexity: Θ(1), plus the copy of a page the first time.
+		 * @param array
+		 * @param index
+		 */
+		private void save(Object array, int index) {
+			if (array == this.nodes.base)
+				this.nodes.save(index);
+			else if (array == this.keys.base)
+				this.keys.save(index);
+			else if (array == this.targets.base)
+				this.targets.save(index);
+			else if (array == this.degrees.base)
+				this.degrees.save(index);
+			else if (array == this.offsets.base)
+				this.offsets.save(index);
+			else if (array == this.entries.base)
+				this.entries.save(index);
+			else if ((this.old != null) && (array == this.old.base))
+				this.old.save(index);
+		}
+
+		/**
+         * Returns the slot of the id in the view, by the lookup of Hashtable.get on the view of its entries.
+		 * <p>
+	     * Average Time Complexity: Θ(1).
+		 * @param node_id
+		 * @return the slot of the id, or -1 if there is none.
+		 */
+		private int getSlot(int node_id) {
+			int i = (this.a * node_id) >>> this.shift, slot;
+			while ((slot = this.entries.getInt(2 * i + 1)) != Hashtable.EMPTY) {
+				if (this.entries.getInt(2 * i) == node_id)
+					return slot;
+				i = (i + 1) & this.mask;
+			}
+			if (this.old == null)
+				return -1;
+			i = (this.a * node_id) >>> this.oldShift;
+			while ((slot = this.old.getInt(2 * i + 1)) != Hashtable.EMPTY) {
+				if ((slot != Hashtable.TOMBSTONE) && (this.old.getInt(2 * i) == node_id))
+					return slot;
+				i = (i + 1) & this.oldMask;
+			}
+			return -1;
+		}
+
+		/**
+	     * This class represents the view of one array of the graph: the shared array, and the copies of the
+	     * pages of it the graph wrote to since the view was taken.
 	     */
-	    public class HashFunction {
-	    	private final int prime;
-	    	private int a, b, m;
-	    	    	
-	    	/**
-	         * Constructs a hash function of the form (ax + b) % p.
+		private static class Pages {
+			private static final int BITS = 12, SIZE = 1 << BITS; // B, the number of entries per page.
+			private static final VarHandle PAGE = MethodHandles.arrayElementVarHandle(Object[].class);
+			private final Object base; // the shared array.
+			private final Object[] pages; // the copy of each page, or null while the page is unchanged.
+
+			public Pages(Object base) {
+				this.base = base;
+				this.pages = new Object[(Array.getLength(base) + SIZE - 1) >>> BITS];
+			}
+
+			/**
+	         * Copies the page of the entry, unless it is copied already. Called by the writer only.
 			 * <p>
-		     * Time Complexity: Θ(1).
-	    	 * @param prime – the prime number.
-			 * @param m – the size of the hash table.
+		     * Time Complexity: Θ(B) the first time, otherwise Θ(1).
+			 * @param index
 			 */
-			public HashFunction(int prime, int m) {
-				Random rand = new Random();
-				this.prime = prime;
-				this.a = rand.nextInt(this.prime - 1) + 1;
-				this.b = rand.nextInt(this.prime);
-				this.m = m;
+			public void save(int index) {
+				int page = index >>> BITS;
+				if (this.pages[page] != null)
+					return;
+				int from = page << BITS, length = Math.min(SIZE, Array.getLength(this.base) - from);
+				Object copy = Array.newInstance(this.base.getClass().getComponentType(), length);
+				System.arraycopy(this.base, from, copy, 0, length);
+				PAGE.setRelease(this.pages, page, copy);
+				VarHandle.storeStoreFence(); // the copy is visible before the write that follows.
 			}
 
-	    	/**
-	         * Returns the hash code value for x.
-			 * <p>
-		     * Time Complexity: Θ(1).
-	    	 * @param x – the key.
-	    	 * @return the hash code value for x.
+			/**
+			 * @param index
+			 * @return the entry of an int array at the time of the view.
+			 */
+			public int getInt(int index) {
+				int page = index >>> BITS;
+				Object copy = PAGE.getAcquire(this.pages, page);
+				if (copy == null) {
+					int value = ((int[]) this.base)[index];
+					VarHandle.loadLoadFence(); // if the value is a newer one, its page is already copied.
+					copy = PAGE.getAcquire(this.pages, page);
+					if (copy == null)
+						return value;
+				}
+				return ((int[]) copy)[index & (SIZE - 1)];
+			}
+
+			/**
+			 * @param index
+			 * @return the entry of a Node array at the time of the view.
 			 */
-			public int hash(int x) {
-				return ((int) Math.floorMod(1L * this.a * x + this.b, this.prime)) % this.m;
-	    	}
-	    }
+			public Node getNode(int index) {
+				int page = index >>> BITS;
+				Object copy = PAGE.getAcquire(this.pages, page);
+				if (copy == null) {
+					Node value = ((Node[]) this.base)[index];
+					VarHandle.loadLoadFence(); // if the value is a newer one, its page is already copied.
+					copy = PAGE.getAcquire(this.pages, page);
+					if (copy == null)
+						return value;
+				}
+				return ((Node[]) copy)[index & (SIZE - 1)];
+			}
+		}
+    }
+
+    /**
+     * This class represents the write barrier of a graph that has open snapshots: before the graph writes to
+     * an entry of an array, it hands the array and the index to save, which copies the page of the entry into
+     * every open snapshot that reads that array and has no copy of it yet. An array the graph replaces (on
+     * growth or compaction) needs no copy, since the graph no longer writes to it.
+     */
+    public static class CopyOnWrite {
+    	private volatile Snapshot[] open = new Snapshot[0]; // replaced, never changed, so save needs no lock.
+
+		/**
+         * Saves the page of an entry for the open snapshots, before the graph writes to the entry.
+		 * <p>
+	     * Time Complexity: Θ(k), where k is the number of open snapshots, plus the copy of a page once per
+	     * page and snapshot.
+		 * @param array
+		 * @param index
+		 */
+		public void save(Object array, int index) {
+			for (Snapshot snapshot : this.open)
+				snapshot.save(array, index);
+		}
+
+		/**
+         * Adds an open snapshot.
+		 * <p>
+	     * Time Complexity: Θ(k).
+		 * @param snapshot
+		 */
+		private synchronized void open(Snapshot snapshot) {
+			Snapshot[] open = Arrays.copyOf(this.open, this.open.length + 1);
+			open[open.length - 1] = snapshot;
+			this.open = open;
+		}
+
+		/**
+         * Removes an open snapshot, if it is open.
+		 * <p>
+	     * Time Complexity: Θ(k).
+		 * @param snapshot
+		 */
+		private synchronized void close(Snapshot snapshot) {
+			Snapshot[] open = this.open;
+			for (int i = 0; i < open.length; i++) {
+				if (open[i] == snapshot) {
+					Snapshot[] rest = Arrays.copyOf(open, open.length - 1);
+					System.arraycopy(open, i + 1, rest, i, open.length - i - 1);
+					this.open = rest;
+					return;
+				}
+			}
+		}
+    }
+    
+    /**
+     * This class represents a hash table from node ids to slots, with open addressing (linear probing)
+     * and multiply–shift universal hashing.
+     * Every entry is an (id, slot) pair stored next to each other in one int array, so a lookup touches
+     * a single cache line on average and nothing is allocated per entry. Deletion shifts the rest of the
+     * probe run backwards, so no tombstones are left behind.
+     */
+    public static class Hashtable {
+    	private static final int EMPTY = -1; // slot value of a free entry.
+    	private static final int TOMBSTONE = -2; // slot value of a removed or moved entry of the old table.
+    	private static final int MIGRATION_STEP = 8; // old entries moved per add or remove while rehashing.
+    	private static final VarHandle ENTRY = MethodHandles.arrayElementVarHandle(int[].class);
+    	private int[] entries; // entries[2i] is the id and entries[2i + 1] the slot of the i-th entry.
+    	private int mask; // capacity - 1, where the capacity is a power of 2.
+    	private int shift; // 32 - log(capacity).
+    	private final int a; // random odd multiplier of the hash function.
+    	private int size; // number of ids, in both tables while rehashing.
+    	private int[] old; // the entries before the current rehash, frozen, or null if there is no rehash.
+    	private int oldMask, oldShift;
+    	private int cursor; // the next entry of the old table to move.
+    	private CopyOnWrite cow; // the write barrier of the open snapshots, or null.
+    	
+		/**
+         * Constructs a hash table for up to N ids, with a power of 2 capacity of at least 2.5N.
+		 * <p>
+	     * Time Complexity: Θ(N).
+		 * @param N – the maximal number of ids.
+		 */
+		public Hashtable(int N) {
+			int capacity = Integer.highestOneBit(Math.max(2, (int) Math.ceil(2.5 * N)) - 1) << 1;
+			this.entries = new int[2 * capacity];
+			for (int i = 1; i < this.entries.length; i += 2)
+				this.entries[i] = EMPTY;
+			this.mask = capacity - 1;
+			this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+			this.a = new Random().nextInt() | 1;
+			this.size = 0;
+		}
+		
+		/**
+         * Adopts the entries of a hash table as they are, e.g. the ones of a snapshot.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param entries – of a power of 2 length, at least 4.
+		 * @param a – the multiplier the entries were hashed with.
+		 * @param size – the number of ids in the entries.
+		 */
+		public Hashtable(int[] entries, int a, int size) {
+			int capacity = entries.length / 2;
+			this.entries = entries;
+			this.mask = capacity - 1;
+			this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+			this.a = a;
+			this.size = size;
+		}
+		
+		/**
+         * Adds every ids[i] with the slot i, possibly in parallel, to an empty hash table. The ids must be
+         * distinct. In parallel, an entry is claimed by a compare‐and‐set of its slot, and its id is written
+         * right after; the join of the tasks publishes all of them.
+		 * <p>
+	     * Average Time Complexity: Θ(N).
+		 * @param ids
+		 * @param parallel
+		 */
+		public void addAll(int[] ids, boolean parallel) {
+			if (!parallel) {
+				for (int i = 0; i < ids.length; i++)
+					add(ids[i], i);
+				return;
+			}
+			RangeTask.run(0, ids.length, (from, to) -> {
+				int j;
+				for (int slot = from; slot < to; slot++) {
+					j = hash(ids[slot]);
+					while (!ENTRY.compareAndSet(this.entries, 2 * j + 1, EMPTY, slot))
+						j = (j + 1) & this.mask;
+					this.entries[2 * j] = ids[slot];
+				}
+			});
+			this.size += ids.length;
+			if ((this.old == null) && (5L * this.size > 2L * (this.mask + 1))) // not the case on an empty table.
+				startRehash();
+		}
+
+		/**
+         * Returns the number of ids in the hash table.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @return the size
+		 */
+		public int getSize() {
+			return this.size;
+		}
+		
+		/**
+         * Returns the slot that corresponds to the id, if it exists.
+		 * <p>
+	     * Average Time Complexity: Θ(1).
+		 * @param node_id
+		 * @return the slot that corresponds to the id, or -1 if there is none.
+		 */
+		public int get(int node_id) {
+			int home = hash(node_id), i = home, slot;
+			while ((slot = this.entries[2 * i + 1]) != EMPTY) {
+				if (this.entries[2 * i] == node_id)
+					break;
+				i = (i + 1) & this.mask;
+			}
+			int probes = GraphMetrics.ENABLED ? ((i - home) & this.mask) + 1 : 0;
+			if ((slot == EMPTY) && (this.old != null)) {
+				i = getOld(node_id);
+				if (i >= 0)
+					slot = this.old[2 * i + 1];
+				if (GraphMetrics.ENABLED) // the probes of the old table too, up to the entry of the id or an empty one.
+					probes += ((Math.max(i, -1 - i) - ((this.a * node_id) >>> this.oldShift)) & this.oldMask) + 1;
+			}
+			if (GraphMetrics.ENABLED)
+				GraphMetrics.HASH_PROBES.record(probes);
+			return slot;
+		}
+		
+		/**
+         * Adds the id with its slot to the hash table, if the id is not already there.
+		 * <p>
+	     * Average Time Complexity: Θ(1).
+		 * @param node_id
+		 * @param slot
+		 */
+		public void add(int node_id, int slot) {
+			if ((this.old != null) && (getOld(node_id) >= 0))
+				return;
+			int i = hash(node_id);
+			while (this.entries[2 * i + 1] != EMPTY) {
+				if (this.entries[2 * i] == node_id)
+					return;
+				i = (i + 1) & this.mask;
+			}
+			if (this.cow != null)
+				this.cow.save(this.entries, 2 * i);
+			this.entries[2 * i] = node_id;
+			this.entries[2 * i + 1] = slot;
+			this.size++;
+			if (this.old != null)
+				migrate(MIGRATION_STEP);
+			else if (5L * this.size > 2L * (this.mask + 1)) // the load factor exceeds 1 / 2.5.
+				startRehash();
+		}
+		
+		/**
+         * Removes the id from the hash table, if it exists, and shifts back the entries that probed past it.
+		 * <p>
+	     * Average Time Complexity: Θ(1).
+		 * @param node_id
+		 */
+		public void remove(int node_id) {
+			if (this.old != null) {
+				migrate(MIGRATION_STEP);
+				int j = (this.old != null) ? getOld(node_id) : -1;
+				if (j >= 0) {
+					if (this.cow != null)
+						this.cow.save(this.old, 2 * j + 1);
+					this.old[2 * j + 1] = TOMBSTONE;
+					this.size--;
+					return;
+				}
+			}
+			int i = hash(node_id);
+			while (this.entries[2 * i] != node_id) {
+				if (this.entries[2 * i + 1] == EMPTY)
+					return;
+				i = (i + 1) & this.mask;
+			}
+			if (this.entries[2 * i + 1] == EMPTY)
+				return;
+			int j = i, home;
+			while (true) {
+				j = (j + 1) & this.mask;
+				if (this.entries[2 * j + 1] == EMPTY)
+					break;
+				home = hash(this.entries[2 * j]);
+				if (((j - home) & this.mask) >= ((j - i) & this.mask)) { // the entry at j may move back to i.
+					if (this.cow != null)
+						this.cow.save(this.entries, 2 * i);
+					this.entries[2 * i] = this.entries[2 * j];
+					this.entries[2 * i + 1] = this.entries[2 * j + 1];
+					i = j;
+				}
+			}
+			if (this.cow != null)
+				this.cow.save(this.entries, 2 * i + 1);
+			this.entries[2 * i + 1] = EMPTY;
+			this.size--;
+		}
+
+    	/**
+         * Returns the home position of x, using the multiply–shift hash ((a * x) mod 2^32) / 2^(32 - log(capacity)).
+		 * <p>
+	     * Time Complexity: Θ(1).
+    	 * @param x – the key.
+    	 * @return the home position of x.
+		 */
+		private int hash(int x) {
+			return (this.a * x) >>> this.shift;
+		}
+		
+		/**
+         * Moves every entry still in the old table, if a rehash is in progress.
+		 * <p>
+	     * Average Time Complexity: Θ(capacity) in W.C.
+		 */
+		public void finishRehash() {
+			if (this.old != null)
+				migrate(this.oldMask + 1);
+		}
+		
+		/**
+         * Returns the index of the id in the old table.
+		 * <p>
+	     * Average Time Complexity: Θ(1).
+		 * @param node_id
+		 * @return the index of the entry of the id in the old table, or -1 - i if it is not there, where i is the
+		 * index of the empty entry that ended the probe.
+		 */
+		private int getOld(int node_id) {
+			int i = (this.a * node_id) >>> this.oldShift, slot;
+			while ((slot = this.old[2 * i + 1]) != EMPTY) {
+				if ((slot != TOMBSTONE) && (this.old[2 * i] == node_id))
+					return i;
+				i = (i + 1) & this.oldMask;
+			}
+			return -1 - i;
+		}
+		
+		/**
+         * Starts a rehash into a table of twice the capacity. The current table is kept, frozen, as the old
+         * one: lookups fall back to it, and every later add or remove moves a few of its entries to the new
+         * table, replacing them with tombstones, so lookups in the old table still probe past them.
+         * The old table is empty long before the new one needs to grow.
+		 * <p>
+	     * Time Complexity: Θ(capacity), for clearing the new table.
+		 */
+		private void startRehash() {
+			this.old = this.entries;
+			this.oldMask = this.mask;
+			this.oldShift = this.shift;
+			this.cursor = 0;
+			this.entries = new int[4 * (this.mask + 1)];
+			for (int i = 1; i < this.entries.length; i += 2)
+				this.entries[i] = EMPTY;
+			this.mask = 2 * this.mask + 1;
+			this.shift--;
+		}
+		
+		/**
+         * Moves up to count entries of the old table to the new one, and drops the old table once it is done.
+		 * <p>
+	     * Average Time Complexity: Θ(count).
+		 * @param count
+		 */
+		private void migrate(int count) {
+			int end = Math.min(this.cursor + count, this.oldMask + 1), slot, i;
+			for (; this.cursor < end; this.cursor++) {
+				slot = this.old[2 * this.cursor + 1];
+				if (slot < 0)
+					continue;
+				i = hash(this.old[2 * this.cursor]);
+				while (this.entries[2 * i + 1] != EMPTY)
+					i = (i + 1) & this.mask;
+				if (this.cow != null) {
+					this.cow.save(this.entries, 2 * i);
+					this.cow.save(this.old, 2 * this.cursor + 1);
+				}
+				this.entries[2 * i] = this.old[2 * this.cursor];
+				this.entries[2 * i + 1] = slot;
+				this.old[2 * this.cursor + 1] = TOMBSTONE;
+			}
+			if (this.cursor > this.oldMask)
+				this.old = null;
+		}
     }
     
     /**
-     * This class represents a Generic Doubly‐Linked List.
+     * This class represents a hash table from the edges to their entries in the adjacency, with open
+     * addressing (linear probing) and multiply–shift hashing of 64‐bit keys.
+     * An edge is keyed by its ordered pair of slots (lo, hi), packed into the long lo * 2^32 + hi, and maps to
+     * the position of its entry in the range of lo; the entry in the range of hi is the reverse one. Keys and
+     * positions are kept in two parallel primitive arrays, so nothing is allocated per edge, and deletion
+     * shifts the rest of the probe run backwards, as in Hashtable. Only lo must be non‐negative, so hi may
+     * also be a node id, as in the (slot, neighbor id) pairs of ShardedGraph.
      */
-    public class DoublyLinkedList<K> {
-    	private DLLNode<K> first = null;
-    	private DLLNode<K> last = null;
-    	private int length;
+    public static class EdgeIndex {
+    	private static final long EMPTY = -1; // key of a free entry; a packed pair of slots is never negative.
+    	private static final VarHandle KEY = MethodHandles.arrayElementVarHandle(long[].class);
+    	private long[] keys; // the packed edge of each entry.
+    	private int[] values; // the position of the entry of the edge in the range of lo.
+    	private int mask; // capacity - 1, where the capacity is a power of 2.
+    	private int shift; // 64 - log(capacity).
+    	private final long a; // random odd multiplier of the hash function.
+    	private int size; // number of edges.
+    	
+		/**
+         * Constructs an edge index for up to m edges before it grows, with a power of 2 capacity of at least 2m.
+		 * <p>
+	     * Time Complexity: Θ(m).
+		 * @param m – the expected number of edges.
+		 */
+		public EdgeIndex(int m) {
+			this.a = new Random().nextLong() | 1;
+			allocate(Integer.highestOneBit(Math.max(2, 2 * m) - 1) << 1);
+		}
+		
+		/**
+         * Adds the edges (slots1[i], slots2[i]) that are not marked by -1, possibly in parallel, and marks by -1
+         * every one that is already in the index or repeats an earlier one, in either direction. The positions
+         * are left unset, for index to fill once the edges are in the adjacency. The index must have room for
+         * all the edges without growing. In parallel, an entry is claimed by a compare‐and‐set of its key.
+		 * <p>
+	     * Average Time Complexity: Θ(m), where m is the number of edges.
+		 * @param slots1
+		 * @param slots2 – of the same length as slots1.
+		 * @param parallel
+		 */
+		public void addAll(int[] slots1, int[] slots2, boolean parallel) {
+			AtomicInteger added = new AtomicInteger();
+			RangeTask.run(0, slots1.length, (from, to) -> {
+				int slot1, slot2, count = 0;
+				for (int i = from; i < to; i++) {
+					slot1 = slots1[i];
+					slot2 = slots2[i];
+					if (slot1 == -1)
+						continue;
+					if (claim(key(Math.min(slot1, slot2), Math.max(slot1, slot2))) < 0)
+						slots1[i] = slots2[i] = -1;
+					else
+						count++;
+				}
+				added.addAndGet(count);
+			}, parallel);
+			this.size += added.get();
+		}
+		
+		/**
+         * Sets the position of every edge of the adjacency over the slots 0, ..., N - 1, possibly in parallel,
+         * adding the edges that are not in the index yet. The index must have room for all the edges without
+         * growing.
+		 * <p>
+	     * Average Time Complexity: Θ(N + m), where m is the number of edges.
+		 * @param adjacency
+		 * @param N
+		 * @param parallel
+		 */
+		public void index(Adjacency adjacency, int N, boolean parallel) {
+			AtomicInteger added = new AtomicInteger();
+			RangeTask.run(0, N, (from, to) -> {
+				int neighbor, j, count = 0;
+				for (int slot = from; slot < to; slot++) {
+					for (int i = adjacency.getDegree(slot) - 1; i >= 0; i--) {
+						neighbor = adjacency.getNeighbor(slot, i);
+						if (neighbor < slot)
+							continue;
+						j = claim(key(slot, neighbor));
+						if (j >= 0)
+							count++;
+						else
+							j = ~j;
+						this.values[j] = i;
+					}
+				}
+				added.addAndGet(count);
+			}, parallel);
+			this.size += added.get();
+		}
+
+		/**
+         * Returns the number of edges in the index.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @return the size
+		 */
+		public int getSize() {
+			return this.size;
+		}
+		
+		/**
+         * Returns the position of the entry of the edge (lo, hi) in the range of lo, if the edge exists.
+		 * <p>
+	     * Average Time Complexity: Θ(1).
+		 * @param lo – the smaller slot.
+		 * @param hi – the larger slot.
+		 * @return the position, or -1 if there is no such edge.
+		 */
+		public int get(int lo, int hi) {
+			long key = key(lo, hi), k;
+			int i = hash(key);
+			while ((k = this.keys[i]) != EMPTY) {
+				if (k == key)
+					return this.values[i];
+				i = (i + 1) & this.mask;
+			}
+			return -1;
+		}
+		
+		/**
+         * Adds the edge (lo, hi) with the position of its entry, if the edge is not already there.
+         * The capacity doubles once the load factor exceeds 1/2.
+		 * <p>
+	     * Amortized Average Time Complexity: Θ(1).
+		 * @param lo – the smaller slot.
+		 * @param hi – the larger slot.
+		 * @param position
+		 * @return 'true' if the edge was added, 'false' if it was already there.
+		 */
+		public boolean add(int lo, int hi, int position) {
+			long key = key(lo, hi), k;
+			int i = hash(key);
+			while ((k = this.keys[i]) != EMPTY) {
+				if (k == key)
+					return false;
+				i = (i + 1) & this.mask;
+			}
+			this.keys[i] = key;
+			this.values[i] = position;
+			if (2L * ++this.size > this.mask + 1)
+				resize();
+			return true;
+		}
+		
+		/**
+         * Sets the position of the entry of an edge in the index.
+		 * <p>
+	     * Average Time Complexity: Θ(1).
+		 * @param lo – the smaller slot.
+		 * @param hi – the larger slot.
+		 * @param position
+		 */
+		public void set(int lo, int hi, int position) {
+			long key = key(lo, hi);
+			int i = hash(key);
+			while (this.keys[i] != key)
+				i = (i + 1) & this.mask;
+			this.values[i] = position;
+		}
+		
+		/**
+         * Removes the edge (lo, hi), if it exists, and shifts back the entries that probed past it.
+		 * <p>
+	     * Average Time Complexity: Θ(1).
+		 * @param lo – the smaller slot.
+		 * @param hi – the larger slot.
+		 */
+		public void remove(int lo, int hi) {
+			long key = key(lo, hi), k;
+			int i = hash(key);
+			while ((k = this.keys[i]) != key) {
+				if (k == EMPTY)
+					return;
+				i = (i + 1) & this.mask;
+			}
+			int j = i, home;
+			while (true) {
+				j = (j + 1) & this.mask;
+				if ((k = this.keys[j]) == EMPTY)
+					break;
+				home = hash(k);
+				if (((j - home) & this.mask) >= ((j - i) & this.mask)) { // the entry at j may move back to i.
+					this.keys[i] = k;
+					this.values[i] = this.values[j];
+					i = j;
+				}
+			}
+			this.keys[i] = EMPTY;
+			this.size--;
+		}
+		
+		/**
+         * Finds the entry of the key, claiming a free one by a compare‐and‐set if the key is not there.
+		 * <p>
+	     * Average Time Complexity: Θ(1).
+		 * @param key
+		 * @return the index of the claimed entry, or ~index of the entry that already holds the key.
+		 */
+		private int claim(long key) {
+			int i = hash(key);
+			long k;
+			while ((k = (long) KEY.compareAndExchange(this.keys, i, EMPTY, key)) != EMPTY) {
+				if (k == key)
+					return ~i;
+				i = (i + 1) & this.mask;
+			}
+			return i;
+		}
+		
+		/**
+         * Rehashes every edge into a table of twice the capacity.
+		 * <p>
+	     * Average Time Complexity: Θ(capacity).
+		 */
+		private void resize() {
+			long[] keys = this.keys;
+			int[] values = this.values;
+			allocate(2 * keys.length);
+			int i;
+			for (int j = 0; j < keys.length; j++) {
+				if (keys[j] == EMPTY)
+					continue;
+				i = hash(keys[j]);
+				while (this.keys[i] != EMPTY)
+					i = (i + 1) & this.mask;
+				this.keys[i] = keys[j];
+				this.values[i] = values[j];
+			}
+		}
+		
+		/**
+         * Replaces the table by an empty one of the given capacity.
+		 * <p>
+	     * Time Complexity: Θ(capacity).
+		 * @param capacity – a power of 2, at least 2.
+		 */
+		private void allocate(int capacity) {
+			this.keys = new long[capacity];
+			Arrays.fill(this.keys, EMPTY);
+			this.values = new int[capacity];
+			this.mask = capacity - 1;
+			this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		}
+
+		/**
+		 * @param lo
+		 * @param hi
+		 * @return the key of the edge (lo, hi).
+		 */
+		private static long key(int lo, int hi) {
+			return ((long) lo << 32) | (hi & 0xFFFFFFFFL);
+		}
+
+    	/**
+         * Returns the home position of the key, using the multiply–shift hash ((a * key) mod 2^64) / 2^(64 - log(capacity)).
+		 * <p>
+	     * Time Complexity: Θ(1).
+    	 * @param key
+    	 * @return the home position of the key.
+		 */
+		private int hash(long key) {
+			return (int) ((this.a * key) >>> this.shift);
+		}
+    }
+    
+    /**
+     * This class represents the adjacency of the graph, as a range of entries per slot inside two shared int
+     * arrays (a pool), in the spirit of CSR.
+     * The entry of a neighbor holds its slot and the position of the reverse entry in the neighbor's range,
+     * so an edge is unlinked from both sides in Θ(1) by moving the last entry of a range into the hole.
+     * A range that fills up is moved to the end of the pool with twice the capacity, and the pool is
+     * compacted once most of it is left behind by moved or released ranges.
+     */
+    public static class Adjacency {
+    	private int[] offsets; // start of the range of each slot in the pool.
+    	private int[] degrees; // number of entries in the range of each slot.
+    	private int[] capacities; // size of the range of each slot.
+    	private int[] targets; // the slot of the neighbor of each entry.
+    	private int[] positions; // the position of the reverse entry inside the range of the neighbor.
+    	private int end; // first free index of the pool.
+    	private int garbage; // number of pool entries that no longer belong to any range.
+    	private CopyOnWrite cow; // the write barrier of the open snapshots, or null.
+    	private static final VarHandle COUNT = MethodHandles.arrayElementVarHandle(int[].class);
+    	
+		/**
+         * Constructs an empty adjacency for the slots 0, ..., N - 1.
+		 * <p>
+	     * Time Complexity: Θ(N).
+		 * @param N – the number of slots.
+		 */
+		public Adjacency(int N) {
+			this.offsets = new int[N];
+			this.degrees = new int[N];
+			this.capacities = new int[N];
+			this.targets = new int[Math.max(16, N)];
+			this.positions = new int[this.targets.length];
+			this.end = 0;
+			this.garbage = 0;
+		}
+		
+		/**
+         * Adopts a compact adjacency, in which every range holds exactly the degree of its slot, e.g. the one
+         * of a snapshot.
+		 * <p>
+	     * Time Complexity: Θ(N).
+		 * @param offsets
+		 * @param degrees
+		 * @param targets
+		 * @param positions – of the same length as targets, the sum of the degrees.
+		 */
+		public Adjacency(int[] offsets, int[] degrees, int[] targets, int[] positions) {
+			this.offsets = offsets;
+			this.degrees = degrees;
+			this.capacities = degrees.clone();
+			this.targets = targets;
+			this.positions = positions;
+			this.end = targets.length;
+			this.garbage = 0;
+		}
+		
+		/**
+         * Makes room for the slots up to N - 1, which get empty ranges.
+		 * <p>
+	     * Time Complexity: Θ(N).
+		 * @param N – the new number of slots.
+		 */
+		public void grow(int N) {
+			if (N <= this.offsets.length)
+				return;
+			this.offsets = Arrays.copyOf(this.offsets, N);
+			this.degrees = Arrays.copyOf(this.degrees, N);
+			this.capacities = Arrays.copyOf(this.capacities, N);
+		}
+		
+		/**
+         * Returns the number of neighbors of the slot.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param slot
+		 * @return the degree of the slot.
+		 */
+		public int getDegree(int slot) {
+			return this.degrees[slot];
+		}
+		
+		/**
+         * Returns the slot of the i-th neighbor of the slot.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param slot
+		 * @param i – the position of the neighbor, 0 <= i < deg(slot).
+		 * @return the slot of the neighbor.
+		 */
+		public int getNeighbor(int slot, int i) {
+			return this.targets[this.offsets[slot] + i];
+		}
+		
+		/**
+         * Returns the position of the reverse entry of the i-th entry of the slot, in the range of its neighbor.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param slot
+		 * @param i – the position of the entry, 0 <= i < deg(slot).
+		 * @return the position of the reverse entry.
+		 */
+		public int getPosition(int slot, int i) {
+			return this.positions[this.offsets[slot] + i];
+		}
+		
+		/**
+         * Loads the edges (slots1[i], slots2[i]) into an empty adjacency, skipping the ones marked by -1.
+         * The degrees are counted first, and their prefix sums give every slot a range of exactly its degree;
+         * the entries are then placed through a cursor per slot. Both passes over the edges may run in parallel,
+         * with the counters and cursors advanced atomically.
+		 * <p>
+	     * Time Complexity: Θ(N + m), where m is the number of edges.
+		 * @param slots1
+		 * @param slots2 – of the same length as slots1.
+		 * @param parallel – whether to pass over the edges in parallel.
+		 * @return the number of loaded edges.
+		 */
+		public int load(int[] slots1, int[] slots2, boolean parallel) {
+			int m = slots1.length, N = this.offsets.length;
+			RangeTask.run(0, m, (from, to) -> {
+				for (int i = from; i < to; i++) {
+					if (slots1[i] == -1)
+						continue;
+					COUNT.getAndAdd(this.degrees, slots1[i], 1);
+					COUNT.getAndAdd(this.degrees, slots2[i], 1);
+				}
+			}, parallel);
+			int end = 0;
+			for (int slot = 0; slot < N; slot++) { // Θ(N).
+				this.offsets[slot] = end;
+				this.capacities[slot] = this.degrees[slot];
+				end += this.degrees[slot];
+				this.degrees[slot] = 0; // from now on, the cursor of the slot.
+			}
+			int length = Math.max(this.targets.length, end + (end >>> 1));
+			this.targets = new int[length];
+			this.positions = new int[length];
+			this.end = end;
+			RangeTask.run(0, m, (from, to) -> {
+				int slot1, slot2, i1, i2;
+				for (int i = from; i < to; i++) {
+					slot1 = slots1[i];
+					if (slot1 == -1)
+						continue;
+					slot2 = slots2[i];
+					i1 = (int) COUNT.getAndAdd(this.degrees, slot1, 1);
+					i2 = (int) COUNT.getAndAdd(this.degrees, slot2, 1);
+					this.targets[this.offsets[slot1] + i1] = slot2;
+					this.positions[this.offsets[slot1] + i1] = i2;
+					this.targets[this.offsets[slot2] + i2] = slot1;
+					this.positions[this.offsets[slot2] + i2] = i1;
+				}
+			}, parallel);
+			return end / 2;
+		}
+		
+		/**
+         * Adds an edge between slot1 and slot2.
+		 * <p>
+	     * Amortized Time Complexity: Θ(1).
+		 * @param slot1
+		 * @param slot2
+		 */
+		public void link(int slot1, int slot2) {
+			int i1 = append(slot1, slot2);
+			int i2 = append(slot2, slot1);
+			this.positions[this.offsets[slot1] + i1] = i2;
+			this.positions[this.offsets[slot2] + i2] = i1;
+		}
+		
+		/**
+         * Removes the edge of the i-th entry of the slot, from both of its sides.
+         * The last entry of the slot is moved into position i.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param slot
+		 * @param i – the position of the entry, 0 <= i < deg(slot).
+		 * @return the slot of the removed neighbor.
+		 */
+		public int unlink(int slot, int i) {
+			int index = this.offsets[slot] + i;
+			int neighbor = this.targets[index];
+			remove(neighbor, this.positions[index]);
+			remove(slot, i);
+			return neighbor;
+		}
+		
+		/**
+         * Releases the range of a slot that has no neighbors left.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param slot
+		 */
+		public void release(int slot) {
+			if (this.cow != null)
+				this.cow.save(this.degrees, slot);
+			this.garbage += this.capacities[slot];
+			this.capacities[slot] = 0;
+			this.degrees[slot] = 0;
+		}
+		
+		/**
+         * Appends an entry for the neighbor to the range of the slot, moving the range if it is full.
+		 * <p>
+	     * Amortized Time Complexity: Θ(1).
+		 * @param slot
+		 * @param neighbor
+		 * @return the position of the new entry.
+		 */
+		private int append(int slot, int neighbor) {
+			int degree = this.degrees[slot];
+			if (degree == this.capacities[slot])
+				relocate(slot, Math.max(2, 2 * degree));
+			if (this.cow != null) {
+				this.cow.save(this.targets, this.offsets[slot] + degree);
+				this.cow.save(this.degrees, slot);
+			}
+			this.targets[this.offsets[slot] + degree] = neighbor;
+			this.degrees[slot] = degree + 1;
+			return degree;
+		}
+		
+		/**
+         * Removes the i-th entry of the slot by moving the last entry into its place, and updates the reverse
+         * entry of the moved one.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param slot
+		 * @param i
+		 */
+		private void remove(int slot, int i) {
+			int offset = this.offsets[slot];
+			if (this.cow != null) {
+				this.cow.save(this.degrees, slot);
+				this.cow.save(this.targets, offset + i);
+			}
+			int last = --this.degrees[slot];
+			if (i == last)
+				return;
+			int neighbor = this.targets[offset + i] = this.targets[offset + last];
+			int position = this.positions[offset + i] = this.positions[offset + last];
+			this.positions[this.offsets[neighbor] + position] = i;
+		}
+		
+		/**
+         * Moves the range of the slot to the end of the pool with the given capacity.
+		 * <p>
+	     * Amortized Time Complexity: Θ(capacity).
+		 * @param slot
+		 * @param capacity – the new capacity, at least deg(slot).
+		 */
+		private void relocate(int slot, int capacity) {
+			ensureCapacity(capacity);
+			int offset = this.offsets[slot], degree = this.degrees[slot];
+			System.arraycopy(this.targets, offset, this.targets, this.end, degree);
+			System.arraycopy(this.positions, offset, this.positions, this.end, degree);
+			this.garbage += this.capacities[slot];
+			if (this.cow != null)
+				this.cow.save(this.offsets, slot);
+			this.offsets[slot] = this.end;
+			this.capacities[slot] = capacity;
+			this.end += capacity;
+		}
+		
+		/**
+         * Makes room for extra entries at the end of the pool, either by compacting the pool (when at least half
+         * of it is garbage) or by doubling it.
+		 * <p>
+	     * Amortized Time Complexity: Θ(extra).
+		 * @param extra
+		 */
+		private void ensureCapacity(int extra) {
+			if (this.end + extra <= this.targets.length)
+				return;
+			int live = this.end - this.garbage;
+			int length = Math.max(this.targets.length, 2 * (live + extra));
+			if (2 * this.garbage < this.end)
+				length = Math.max(length, 2 * this.targets.length);
+			int[] newTargets = new int[length], newPositions = new int[length];
+			int newEnd = 0;
+			for (int slot = 0; slot < this.offsets.length; slot++) {
+				if (this.capacities[slot] == 0)
+					continue;
+				System.arraycopy(this.targets, this.offsets[slot], newTargets, newEnd, this.degrees[slot]);
+				System.arraycopy(this.positions, this.offsets[slot], newPositions, newEnd, this.degrees[slot]);
+				if (this.cow != null)
+					this.cow.save(this.offsets, slot);
+				this.offsets[slot] = newEnd;
+				newEnd += this.capacities[slot];
+			}
+			this.targets = newTargets;
+			this.positions = newPositions;
+			this.end = newEnd;
+			this.garbage = 0;
+		}
+    }
+    
+    /**
+     * This interface represents a structure that keeps the keys of the slots of the graph, i.e. their
+     * neighborhood weights, and finds the slot with the max key. Graph works through it, so the d‐ary heap
+     * and the tournament tree can be swapped for one another.
+     */
+    public interface MaxStructure {
+		/**
+         * @return the arity of the heap, or TOURNAMENT for a tournament tree.
+		 */
+		int getArity();
+		
+		/**
+         * @return the slot with the max key, after the repair of the structure in lazy mode.
+		 */
+		int getMax();
+		
+		/**
+         * Turns the lazy mode on or off. Turning it off repairs the structure.
+		 * @param lazy
+		 */
+		void setLazy(boolean lazy);
+		
+		/**
+         * @return 'true' if the structure is in lazy mode, otherwise 'false'.
+		 */
+		boolean isLazy();
+		
+		/**
+         * @param count – the number of key changes.
+		 * @return 'true' if changing the keys without repairs and calling rebuild once is cheaper than
+		 * repairing after each change, otherwise 'false'.
+		 */
+		boolean isRebuildCheaper(int count);
+		
+		/**
+         * Repairs the structure after lazy changes.
+		 */
+		void flush();
+		
+		/**
+         * Repairs the whole structure, after addToKey, detach or lazy changes.
+		 */
+		void rebuild();
+		
+		/**
+         * Writes the slots with the k largest keys into slots[0..k-1], largest first, without changing the
+         * structure.
+		 * @param k
+		 * @param slots – the buffer for the result.
+		 * @return the number of slots written, i.e. min(k, length, slots.length).
+		 */
+		int topK(int k, int[] slots);
+		
+		/**
+		 * @param slot
+		 * @return the key of the slot.
+		 */
+		int getKey(int slot);
+		
+		/**
+		 * @return the keys of the slots, indexed by the slot; the array is shared, not copied.
+		 */
+		int[] getKeys();
+		
+		/**
+		 * @return the number of slots currently in the structure.
+		 */
+		int getLength();
+		
+		/**
+		 * @return the slots currently in the structure, in the first getLength() entries: in heap order for a
+		 * heap, in increasing order for a tournament tree.
+		 */
+		int[] getSlots();
+		
+		/**
+		 * @param slot
+		 * @return 'true' if the slot is in the structure, otherwise 'false'.
+		 */
+		boolean contains(int slot);
+		
+		/**
+         * Increases the key of the slot by inc.
+		 * @param slot
+		 * @param inc
+		 */
+		void increaseKey(int slot, int inc);
+		
+		/**
+         * Decreases the key of the slot by dec.
+		 * @param slot
+		 * @param dec
+		 */
+		void decreaseKey(int slot, int dec);
+		
+		/**
+         * Inserts a new slot with the given key, growing the arrays if the slot is beyond them.
+		 * @param slot – a slot that is not in the structure.
+		 * @param key
+		 */
+		void insert(int slot, int key);
+		
+		/**
+         * Changes the key of the slot by delta without repairing the structure; rebuild must be called before
+         * the structure is used again.
+		 * @param slot
+		 * @param delta
+		 */
+		void addToKey(int slot, int delta);
+		
+		/**
+         * Deletes the slot without repairing the structure; rebuild must be called before the structure is
+         * used again.
+		 * @param slot
+		 */
+		void detach(int slot);
+		
+		/**
+         * Deletes the slot.
+		 * @param slot
+		 */
+		void delete(int slot);
+		
+		/**
+         * Sets the write barrier of the open snapshots, which is called before every write to the keys.
+		 * @param cow
+		 */
+		void setCopyOnWrite(CopyOnWrite cow);
+    }
+    
+    /**
+     * This class represents a d-ary Max Heap over the slots of the graph.
+     * The key and the heap position of every slot are kept in int arrays indexed by the slot,
+     * so the heap itself only moves ints around.
+     * Sifting is iterative and moves a hole instead of swapping: every level writes one heap entry and one
+     * position, and the sifted slot is written once at its final place.
+     * In lazy mode, key changes and deletions only mark the slots whose place may be wrong, and the heap is
+     * repaired when the max or the top k are asked for.
+     */
+    public static class MaxHeap implements MaxStructure {
+    	public static final int DEFAULT_ARITY = 4;
+    	private final int arity; // number of children of every node.
+    	private int[] heap; // slots in heap order.
+    	private int[] pos; // heap position of each slot, -1 if the slot is not in the heap.
+    	private int[] keys; // key of each slot, i.e. the neighborhood weight of the node.
+    	private int length; // number of slots currently in the heap.
+    	private int[] frontier = new int[0]; // heap positions that are candidates for the next topK result.
+    	private boolean lazy = false;
+    	private boolean[] isDirty; // whether each slot is marked, in lazy mode.
+    	private int[] dirty; // the marked slots, in lazy mode.
+    	private int dirtyCount = 0;
+    	private CopyOnWrite cow; // the write barrier of the open snapshots, or null.
+    	
+		/**
+         * Constructs a Max Heap of the default arity out of the keys of the slots 0, ..., N - 1.
+		 * <p>
+	     * Time Complexity: O(N).
+		 * @param keys
+		 */
+		public MaxHeap(int[] keys) {
+			this(keys, DEFAULT_ARITY);
+		}
+    	
+		/**
+         * Constructs a Max Heap of the given arity out of the keys of the slots 0, ..., N - 1.
+		 * <p>
+	     * Time Complexity: O(N).
+		 * @param keys
+		 * @param arity – the number of children of every node, at least 2.
+		 */
+		public MaxHeap(int[] keys, int arity) {
+			this(keys, arity, false);
+		}
+    	
+		/**
+         * Constructs a Max Heap of the given arity out of the keys of the slots 0, ..., N - 1, possibly in
+         * parallel.
+		 * <p>
+	     * Time Complexity: O(N).
+		 * @param keys
+		 * @param arity – the number of children of every node, at least 2.
+		 * @param parallel – whether to build the heap in parallel.
+		 */
+		public MaxHeap(int[] keys, int arity, boolean parallel) {
+			if (arity < 2)
+				throw new IllegalArgumentException("arity must be at least 2: " + arity);
+			int N = keys.length;
+			this.arity = arity;
+			this.keys = keys;
+			this.heap = new int[N];
+			this.pos = new int[N];
+			this.length = N;
+			if (parallel) {
+				RangeTask.run(0, N, (from, to) -> {
+					for (int i = from; i < to; i++)
+						this.heap[i] = this.pos[i] = i;
+				});
+				this.parallelArrayToMaxHeap();
+				return;
+			}
+			for (int i = 0; i < N; i++)
+				this.heap[i] = this.pos[i] = i;
+			if (this.length > 0)
+				this.arrayToMaxHeap();
+		}
+		
+		/**
+         * Adopts a heap order as it is, e.g. the one of a snapshot.
+		 * <p>
+	     * Time Complexity: Θ(N).
+		 * @param keys
+		 * @param heap – the slots of the heap in heap order, in its first length entries.
+		 * @param length
+		 * @param arity – the number of children of every node, at least 2.
+		 */
+		public MaxHeap(int[] keys, int[] heap, int length, int arity) {
+			if (arity < 2)
+				throw new IllegalArgumentException("arity must be at least 2: " + arity);
+			this.arity = arity;
+			this.keys = keys;
+			this.heap = heap;
+			this.pos = new int[keys.length];
+			Arrays.fill(this.pos, -1);
+			for (int i = 0; i < length; i++)
+				this.pos[heap[i]] = i;
+			this.length = length;
+		}
+		
+		/**
+         * Returns the arity of the heap.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @return the arity
+		 */
+		public int getArity() {
+			return this.arity;
+		}
+		
+		/**
+         * Returns the slot of the max node.
+		 * <p>
+	     * Time Complexity: Θ(1), after the repair of the heap in lazy mode.
+		 * @return heap[0] – the slot of the max node.
+		 */
+		public int getMax() {
+			if (this.dirtyCount > 0)
+				flush();
+			return this.heap[0];
+		}
+		
+		/**
+         * Turns the lazy mode on or off. Turning it off repairs the heap.
+		 * <p>
+	     * Time Complexity: O(min(k log(n), n)), where k is the number of marked slots.
+		 * @param lazy
+		 */
+		public void setLazy(boolean lazy) {
+			if (lazy && (this.isDirty == null)) {
+				this.isDirty = new boolean[this.pos.length];
+				this.dirty = new int[this.pos.length];
+			}
+			if (!lazy)
+				flush();
+			this.lazy = lazy;
+		}
+		
+		/**
+         * Returns whether the heap is in lazy mode.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @return the lazy
+		 */
+		public boolean isLazy() {
+			return this.lazy;
+		}
+		
+		/**
+         * Returns whether changing the keys of count slots and heapifying once is cheaper than sifting after
+         * each change, i.e. whether count * log(n) >= n.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param count – the number of key changes.
+		 * @return 'true' if a single rebuild of the heap is cheaper, otherwise 'false'.
+		 */
+		public boolean isRebuildCheaper(int count) {
+			return (long) count * (32 - Integer.numberOfLeadingZeros(this.length)) >= this.length;
+		}
+		
+		/**
+         * Repairs the heap after lazy changes, either by heapifying the whole array or, when few slots are
+         * marked, by a bottom‐up heapify restricted to the positions of the marked slots and their ancestors:
+         * every other subtree is still a heap. The positions are sifted down in decreasing order, merging the
+         * sorted marked positions with the parents of the positions already sifted.
+		 * <p>
+	     * Time Complexity: O(min(k log(n) (d log(n) + log(k)), n)), where k is the number of marked slots.
+		 */
+		public void flush() {
+			if (this.dirtyCount == 0)
+				return;
+			if (isRebuildCheaper(this.dirtyCount)) {
+				arrayToMaxHeap();
+				return;
+			}
+			if (this.frontier.length < this.dirtyCount)
+				this.frontier = new int[Math.max(this.dirtyCount, 2 * this.frontier.length)];
+			int[] positions = this.frontier, parents = this.dirty;
+			int size = 0, slot;
+			for (int i = 0; i < this.dirtyCount; i++) {
+				slot = this.dirty[i];
+				this.isDirty[slot] = false;
+				if (this.pos[slot] >= 0)
+					positions[size++] = this.pos[slot];
+			}
+			this.dirtyCount = 0;
+			Arrays.sort(positions, 0, size);
+			int head = 0, tail = 0, index, previous = -1, parent;
+			while ((size > 0) || (head < tail)) {
+				if ((head == tail) || ((size > 0) && (positions[size - 1] > parents[head])))
+					index = positions[--size];
+				else
+					index = parents[head++];
+				if (index == previous)
+					continue;
+				previous = index;
+				heapify_down(index);
+				if (index > 0) {
+					parent = getParentIndex(index);
+					if ((tail == 0) || (parents[tail - 1] != parent))
+						parents[tail++] = parent;
+				}
+			}
+		}
+		
+		/**
+         * Marks the slot for the next repair of the heap.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param slot
+		 */
+		private void markDirty(int slot) {
+			if (!this.isDirty[slot]) {
+				this.isDirty[slot] = true;
+				this.dirty[this.dirtyCount++] = slot;
+			}
+		}
+		
+		/**
+         * Writes the slots with the k largest keys into slots[0..k-1], largest first, without changing the heap.
+         * The candidates are kept in a frontier, which is itself a binary heap of heap positions: popping a
+         * position makes its children candidates.
+		 * <p>
+	     * Time Complexity: Θ(k log(k)).
+		 * @param k
+		 * @param slots – the buffer for the result.
+		 * @return the number of slots written, i.e. min(k, length, slots.length).
+		 */
+		public int topK(int k, int[] slots) {
+			k = Math.min(k, Math.min(this.length, slots.length));
+			if (k <= 0)
+				return 0;
+			if (this.dirtyCount > 0)
+				flush();
+			int bound = k * (this.arity - 1) + 1;
+			if (this.frontier.length < bound)
+				this.frontier = new int[Math.max(bound, 2 * this.frontier.length)];
+			int[] frontier = this.frontier;
+			int size = 1, index, child;
+			frontier[0] = 0;
+			for (int count = 0; count < k; count++) {
+				index = frontier[0];
+				slots[count] = this.heap[index];
+				frontier[0] = frontier[--size];
+				siftFrontierDown(size);
+				int last = Math.min(getFirstChildIndex(index) + this.arity, this.length);
+				for (child = getFirstChildIndex(index); child < last; child++) {
+					frontier[size] = child;
+					siftFrontierUp(size++);
+				}
+			}
+			return k;
+		}
+		
+		/**
+         * Restores the frontier heap property by moving frontier[0] down.
+		 * <p>
+	     * Time Complexity: Θ(log(size)) in W.C.
+		 * @param size – the size of the frontier.
+		 */
+		private void siftFrontierDown(int size) {
+			int[] frontier = this.frontier;
+			int index = 0, child, value = frontier[0];
+			while ((child = 2 * index + 1) < size) {
+				if ((child + 1 < size) && (this.keys[this.heap[frontier[child + 1]]] > this.keys[this.heap[frontier[child]]]))
+					child++;
+				if (this.keys[this.heap[frontier[child]]] <= this.keys[this.heap[value]])
+					break;
+				frontier[index] = frontier[child];
+				index = child;
+			}
+			frontier[index] = value;
+		}
+		
+		/**
+         * Restores the frontier heap property by moving frontier[index] up.
+		 * <p>
+	     * Time Complexity: Θ(log(index)) in W.C.
+		 * @param index
+		 */
+		private void siftFrontierUp(int index) {
+			int[] frontier = this.frontier;
+			int parent, value = frontier[index];
+			while ((index > 0) && (this.keys[this.heap[frontier[parent = (index - 1) / 2]]] < this.keys[this.heap[value]])) {
+				frontier[index] = frontier[parent];
+				index = parent;
+			}
+			frontier[index] = value;
+		}
+		
+		/**
+         * Returns the key of the slot.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param slot
+		 * @return the key of the slot.
+		 */
+		public int getKey(int slot) {
+			return this.keys[slot];
+		}
+		
+		/**
+         * Returns the keys of the slots.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @return the keys
+		 */
+		public int[] getKeys() {
+			return this.keys;
+		}
+		
+		/**
+         * Returns the slots of the heap, in heap order in the first length entries.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @return the heap
+		 */
+		public int[] getSlots() {
+			return this.heap;
+		}
+		
+		/**
+         * Sets the write barrier of the open snapshots.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param cow
+		 */
+		public void setCopyOnWrite(CopyOnWrite cow) {
+			this.cow = cow;
+		}
+		
+		/**
+         * Returns the number of slots currently in the heap.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @return the length
+		 */
+		public int getLength() {
+			return this.length;
+		}
+		
+		/**
+         * Returns whether the slot is currently in the heap.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param slot
+		 * @return 'true' if the slot is in the heap, otherwise 'false'.
+		 */
+		public boolean contains(int slot) {
+			return this.pos[slot] >= 0;
+		}
+		
+		/**
+         * Increases the key of the slot by inc.
+		 * <p>
+	     * Time Complexity: O(log(n)).
+		 * @param slot
+		 * @param inc
+		 */
+		public void increaseKey(int slot, int inc) {
+			if (this.cow != null)
+				this.cow.save(this.keys, slot);
+			this.keys[slot] += inc;
+			if (this.lazy)
+				markDirty(slot);
+			else if (GraphMetrics.ENABLED)
+				GraphMetrics.SIFT_LEVELS.record(heapify_up(this.pos[slot]));
+			else
+				heapify_up(this.pos[slot]);
+		}
+		
+		/**
+         * Decreases the key of the slot by dec.
+		 * <p>
+	     * Time Complexity: O(log(n)).
+		 * @param slot
+		 * @param dec
+		 */
+		public void decreaseKey(int slot, int dec) {
+			if (this.cow != null)
+				this.cow.save(this.keys, slot);
+			this.keys[slot] -= dec;
+			if (this.lazy)
+				markDirty(slot);
+			else if (GraphMetrics.ENABLED)
+				GraphMetrics.SIFT_LEVELS.record(heapify_down(this.pos[slot]));
+			else
+				heapify_down(this.pos[slot]);
+		}
+		
+		/**
+         * Inserts a new slot with the given key, growing the arrays geometrically if the slot is beyond them.
+		 * <p>
+	     * Amortized Time Complexity: O(log(n)).
+		 * @param slot – a slot that is not in the heap.
+		 * @param key
+		 */
+		public void insert(int slot, int key) {
+			if (slot >= this.keys.length) {
+				int N = this.keys.length, capacity = Math.max(slot + 1, 2 * N);
+				this.keys = Arrays.copyOf(this.keys, capacity);
+				this.heap = Arrays.copyOf(this.heap, capacity);
+				this.pos = Arrays.copyOf(this.pos, capacity);
+				Arrays.fill(this.pos, N, capacity, -1);
+				if (this.isDirty != null) {
+					this.isDirty = Arrays.copyOf(this.isDirty, capacity);
+					this.dirty = Arrays.copyOf(this.dirty, capacity);
+				}
+			}
+			if (this.cow != null)
+				this.cow.save(this.keys, slot);
+			this.keys[slot] = key;
+			this.heap[this.length] = slot;
+			this.pos[slot] = this.length++;
+			if (this.lazy)
+				markDirty(slot);
+			else if (GraphMetrics.ENABLED)
+				GraphMetrics.SIFT_LEVELS.record(heapify_up(this.length - 1));
+			else
+				heapify_up(this.length - 1);
+		}
+		
+		/**
+         * Changes the key of the slot by delta without restoring the heap property.
+         * arrayToMaxHeap must be called before the heap is used again.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param slot
+		 * @param delta
+		 */
+		public void addToKey(int slot, int delta) {
+			if (this.cow != null)
+				this.cow.save(this.keys, slot);
+			this.keys[slot] += delta;
+		}
+		
+		/**
+         * Deletes the slot from the heap without restoring the heap property.
+         * arrayToMaxHeap must be called before the heap is used again.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param slot
+		 */
+		public void detach(int slot) {
+			int index = this.pos[slot];
+			this.pos[slot] = -1;
+			this.length--;
+			if (index == this.length)
+				return;
+			this.heap[index] = this.heap[this.length];
+			this.pos[this.heap[index]] = index;
+		}
+		
+		/**
+         * Deletes the slot from the heap.
+		 * <p>
+	     * Time Complexity: O(log(n)).
+		 * @param slot
+		 */
+		public void delete(int slot) {
+			int index = this.pos[slot];
+			this.pos[slot] = -1;
+			this.length--;
+			if (index == this.length)
+				return;
+			this.heap[index] = this.heap[this.length];
+			this.pos[this.heap[index]] = index;
+			if (this.lazy) {
+				markDirty(this.heap[index]);
+				return;
+			}
+			int parentIndex = getParentIndex(index), levels;
+			if (this.keys[this.heap[index]] > this.keys[this.heap[parentIndex]])
+				levels = heapify_up(index);
+			else
+				levels = heapify_down(index);
+			if (GraphMetrics.ENABLED)
+				GraphMetrics.SIFT_LEVELS.record(levels);
+		}
+		
+		/**
+         * Returns the index of the first child.
+		 * <p>
+	     * Time Complexity: Θ(1).
+		 * @param parentIndex
+		 * @return the index of the first child.
+		 */
+        private int getFirstChildIndex(int parentIndex) {
+		    return this.arity * parentIndex + 1;
+        }
 		
 		/**
-         * Inserts the DLLNode‐wrapped data of type K as the first term.
+         * Returns the index of the parent.
 		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @param data
+		 * @param childIndex
+		 * @return the index of the parent.
 		 */
-		public void insertFirst(K data) {
-			DLLNode<K> node = new DLLNode<>(data);
-			node.setNext(this.first);
-			this.first = node;
-			if (node.getNext() == null)
-				this.last = node;
-			else
-				node.getNext().setPrev(node);
-			this.length++;
-		}
+        private int getParentIndex(int childIndex) {
+        	return (childIndex - 1) / this.arity;
+        }
 		
-		/**
-         * Returns the DLLNode that corresponds to the id, if it exists.
+        /**
+         * Restores the heap property by moving a node up past every parent with a smaller key.
 		 * <p>
-	     * Time Complexity: Θ(length).
-		 * @param node_id
-		 * @return the DLLNode that corresponds to the id.
+	     * Time Complexity: Θ(log(n)) in W.C.
+		 * @param index
+		 * @return the number of levels the node moved.
 		 */
-		public DLLNode<K> get(int node_id) {
-			DLLNode<K> cur = this.first;
-			while (cur != null) {
-				if (((HashNode) cur.getData()).getId() == node_id)
-					return cur;
-				cur = cur.getNext();
+		private int heapify_up(int index) {
+			int slot = this.heap[index], key = this.keys[slot], parentIndex, parent, levels = 0;
+			while (index > 0) {
+				parentIndex = getParentIndex(index);
+				parent = this.heap[parentIndex];
+				if (this.keys[parent] >= key)
+					break;
+				this.heap[index] = parent;
+				this.pos[parent] = index;
+				index = parentIndex;
+				levels++;
 			}
-			return null;
+			this.heap[index] = slot;
+			this.pos[slot] = index;
+			return levels;
 		}
-
-		/**
-         * Removes the DLLNode of type K from the DLL.
+		
+        /**
+         * Restores the heap property by moving a node down past every child with a larger key,
+         * always to the largest child.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @param node
+	     * Time Complexity: Θ(d log(n)) in W.C.
+		 * @param index
+		 * @return the number of levels the node moved.
 		 */
-		public void delete(DLLNode<K> node) {
-			if (this.first == node) {
-				this.first = node.getNext();
-				if (this.last == node)
-					this.last = null;
-				else
-					this.first.setPrev(null);
-			}
-			else if (this.last == node) {
-				this.last = node.getPrev();
-				this.last.setNext(null);
+		private int heapify_down(int index) {
+			int slot = this.heap[index], key = this.keys[slot], first, last, max, child, levels = 0;
+			while ((first = getFirstChildIndex(index)) < this.length) {
+				last = Math.min(first + this.arity, this.length);
+				max = first;
+				for (child = first + 1; child < last; child++)
+					if (this.keys[this.heap[child]] > this.keys[this.heap[max]])
+						max = child;
+				child = this.heap[max];
+				if (this.keys[child] <= key)
+					break;
+				this.heap[index] = child;
+				this.pos[child] = index;
+				index = max;
+				levels++;
 			}
-			else {
-				node.getPrev().setNext(node.getNext());
-				node.getNext().setPrev(node.getPrev());
-			}
-			this.length--;
+			this.heap[index] = slot;
+			this.pos[slot] = index;
+			return levels;
 		}
-
+		
 		/**
-         * Returns the first field.
+         * Heapifies the array bottom‐up, as arrayToMaxHeap.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the first
+	     * Time Complexity: Θ(length).
 		 */
-		public DLLNode<K> getFirst() {
-			return this.first;
+		public void rebuild() {
+			arrayToMaxHeap();
 		}
-
+		
 		/**
-         * Returns the last field.
+         * Heapifies the array bottom‐up.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the last
+	     * Time Complexity: Θ(length).
 		 */
-		public DLLNode<K> getLast() {
-			return this.last;
+		public void arrayToMaxHeap() {
+			for (int i = 0; i < this.dirtyCount; i++)
+				this.isDirty[this.dirty[i]] = false;
+			this.dirtyCount = 0;
+			if (this.length == 0)
+				return;
+			int last = getParentIndex(this.length - 1);
+			for (int i = last; i >= 0; i--)
+				heapify_down(i);
 		}
-
+		
 		/**
-         * Returns the length.
+         * Heapifies the array bottom‐up, one level at a time from the deepest one, sifting down the nodes of a
+         * level in parallel: their subtrees are disjoint.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the length
+	     * Time Complexity: Θ(length), and O(length / p + log(length)^2) on p cores.
 		 */
-		public int getLength() {
-			return this.length;
+		private void parallelArrayToMaxHeap() {
+			if (this.length <= 1)
+				return;
+			int last = getParentIndex(this.length - 1), depth = 0;
+			long start = 0, size = 1;
+			while (start + size <= last) { // the level of last starts at start.
+				start += size;
+				size *= this.arity;
+				depth++;
+			}
+			for (; depth >= 0; depth--) {
+				RangeTask.run((int) start, (int) Math.min(start + size - 1, last) + 1, (from, to) -> {
+					for (int i = to - 1; i >= from; i--)
+						heapify_down(i);
+				});
+				size /= this.arity;
+				start -= size;
+			}
 		}
     }
     
     /**
-     * This class represents a node for the Generic Doubly‐Linked List.
+     * This class represents a tournament (winner) tree over the slots of the graph: an implicit complete
+     * binary tree in an int array, with a leaf per slot at capacity + slot, where every inner node holds the
+     * slot with the max key among the leaves below it, and the root (node 1) holds the max.
+     * Since the slots are dense, nothing ever moves: a key change replays the matches on the path from the
+     * leaf of the slot to the root, stopping as soon as a node keeps a winner other than the slot, and a
+     * deletion empties the leaf (−∞) and replays its path. There are no heap positions to keep in sync.
+     * In lazy mode, key changes and deletions only mark the slots, and their paths are replayed when the max or
+     * the top k are asked for.
      */
-	public class DLLNode<K> {
-		private DLLNode<K> prev = null;
-    	private DLLNode<K> next = null;
-    	private K data;
+    public static class TournamentTree implements MaxStructure {
+    	private int capacity; // number of leaves, a power of 2.
+    	private int[] tree; // the winning slot of each node, -1 if no slot below it is in the tree; tree[0] is unused.
+    	private int[] keys; // key of each slot, i.e. the neighborhood weight of the node.
+    	private int length; // number of slots currently in the tree.
+    	private int[] frontier = new int[0]; // nodes whose winners are candidates for the next topK result.
+    	private boolean lazy = false;
+    	private boolean[] isDirty; // whether each slot is marked, in lazy mode.
+    	private int[] dirty; // the marked slots, in lazy mode.
+    	private int dirtyCount = 0;
+    	private CopyOnWrite cow; // the write barrier of the open snapshots, or null.
     	
 		/**
-         * Constructs a DLLNode with data of type K.
+         * Constructs a tournament tree out of the keys of the slots 0, ..., N - 1.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @param data
+	     * Time Complexity: Θ(N).
+		 * @param keys
 		 */
-		public DLLNode(K data) {
-			this.data = data;
+		public TournamentTree(int[] keys) {
+			this(keys, false);
 		}
-
+    	
 		/**
-         * Returns the data of type K.
+         * Constructs a tournament tree out of the keys of the slots 0, ..., N - 1, possibly in parallel.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the data
+	     * Time Complexity: Θ(N), and O(N / p + log(N)^2) on p cores in parallel.
+		 * @param keys
+		 * @param parallel – whether to build the tree in parallel.
 		 */
-		public K getData() {
-			return this.data;
+		public TournamentTree(int[] keys, boolean parallel) {
+			int N = keys.length;
+			this.keys = keys;
+			this.capacity = getCapacity(N);
+			this.tree = new int[2 * this.capacity];
+			this.length = N;
+			RangeTask.run(0, this.capacity, (from, to) -> {
+				for (int slot = from; slot < to; slot++)
+					this.tree[this.capacity + slot] = (slot < N) ? slot : -1;
+			}, parallel);
+			build(parallel);
 		}
-
+		
 		/**
-         * Returns the prev field.
+         * Constructs a tournament tree out of the keys of the given slots, e.g. the ones of a snapshot.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the prev
+	     * Time Complexity: Θ(N).
+		 * @param keys
+		 * @param slots – the slots of the tree, in its first length entries.
+		 * @param length
 		 */
-		public DLLNode<K> getPrev() {
-			return this.prev;
+		public TournamentTree(int[] keys, int[] slots, int length) {
+			this.keys = keys;
+			this.capacity = getCapacity(keys.length);
+			this.tree = new int[2 * this.capacity];
+			Arrays.fill(this.tree, this.capacity, 2 * this.capacity, -1);
+			for (int i = 0; i < length; i++)
+				this.tree[this.capacity + slots[i]] = slots[i];
+			this.length = length;
+			build(true);
 		}
-
+		
 		/**
-         * Sets the prev field.
+         * Returns the number of leaves of a tree for N slots.
 		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @param prev the prev to set
+		 * @param N
+		 * @return the least power of 2 that is at least N.
 		 */
-		public void setPrev(DLLNode<K> prev) {
-			this.prev = prev;
+		private static int getCapacity(int N) {
+			return (N <= 1) ? 1 : Integer.highestOneBit(N - 1) << 1;
 		}
-
+		
 		/**
-         * Returns the next field.
+         * Returns TOURNAMENT, in place of an arity.
 		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @return the next
+		 * @return TOURNAMENT
 		 */
-		public DLLNode<K> getNext() {
-			return this.next;
+		public int getArity() {
+			return TOURNAMENT;
 		}
-
+		
 		/**
-         * Sets the next field.
+         * Returns the slot with the max key.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @param next the next to set
+	     * Time Complexity: Θ(1), after the repair of the tree in lazy mode.
+		 * @return tree[1] – the slot with the max key, -1 if the tree is empty.
 		 */
-		public void setNext(DLLNode<K> next) {
-			this.next = next;
+		public int getMax() {
+			if (this.dirtyCount > 0)
+				flush();
+			return this.tree[1];
 		}
-	}
-    
-    /**
-     * This class represents a (binary) Max Heap.
-     */
-    public class MaxHeap {
-    	private HeapNode[] heap;
-    	private int length; // number of nodes currently in the heap.
-    	
+		
 		/**
-         * Constructs a Max Heap out of array of HeapNodes.
+         * Turns the lazy mode on or off. Turning it off repairs the tree.
 		 * <p>
-	     * Time Complexity: O(N).
-		 * @param heap
+	     * Time Complexity: O(min(k log(n), n)), where k is the number of marked slots.
+		 * @param lazy
 		 */
-		public MaxHeap(HeapNode[] heap) {
-			this.heap = heap;
-			this.length = heap.length;
-			if (this.length > 0)
-				this.arrayToMaxHeap();
+		public void setLazy(boolean lazy) {
+			if (lazy && (this.isDirty == null)) {
+				this.isDirty = new boolean[this.keys.length];
+				this.dirty = new int[this.keys.length];
+			}
+			if (!lazy)
+				flush();
+			this.lazy = lazy;
 		}
 		
 		/**
-         * Returns the max node.
+         * Returns whether the tree is in lazy mode.
 		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @return heap[0] – the max node.
+		 * @return the lazy
 		 */
-		public HeapNode getMax() {
-			return this.heap[0];
+		public boolean isLazy() {
+			return this.lazy;
 		}
 		
 		/**
-         * Increases the key of heap[index] by inc.
+         * Returns whether changing the keys of count slots and rebuilding once is cheaper than replaying a path
+         * after each change, i.e. whether count * log(capacity) >= capacity.
 		 * <p>
-	     * Time Complexity: O(log(n)).
-		 * @param index
-		 * @param inc
+	     * Time Complexity: Θ(1).
+		 * @param count – the number of key changes.
+		 * @return 'true' if a single rebuild of the tree is cheaper, otherwise 'false'.
 		 */
-		public void increaseKey(int index, int inc) {
-			int key = this.heap[index].getKey();
-			this.heap[index].setKey(key + inc);
-			heapify_up(index);
+		public boolean isRebuildCheaper(int count) {
+			return (long) count * Integer.numberOfTrailingZeros(this.capacity) >= this.capacity;
 		}
 		
 		/**
-         * Decreases the key of heap[index] by dec.
+         * Repairs the tree after lazy changes, either by rebuilding it or by replaying the whole path of every
+         * marked slot: a node is replayed after every replay below it, so the early stop is not needed.
 		 * <p>
-	     * Time Complexity: O(log(n)).
-		 * @param index
-		 * @param dec
+	     * Time Complexity: O(min(k log(n), n)), where k is the number of marked slots.
 		 */
-		public void decreaseKey(int index, int dec) {
-			int key = this.heap[index].getKey();
-			this.heap[index].setKey(key - dec);
-			heapify_down(index);
+		public void flush() {
+			if (this.dirtyCount == 0)
+				return;
+			if (isRebuildCheaper(this.dirtyCount)) {
+				rebuild();
+				return;
+			}
+			int slot;
+			for (int i = 0; i < this.dirtyCount; i++) {
+				slot = this.dirty[i];
+				this.isDirty[slot] = false;
+				replay(slot, false);
+			}
+			this.dirtyCount = 0;
 		}
 		
 		/**
-         * Deletes heap[index] from the heap.
+         * Recomputes the winners of all the inner nodes.
 		 * <p>
-	     * Time Complexity: O(log(n)).
-		 * @param index
+	     * Time Complexity: Θ(capacity).
 		 */
-		public void delete(int index) {
-			if (index == this.length - 1) {
-				this.length--;
-				this.heap[index] = null;
-				return;
-			}
-			swap(index, this.length - 1);
-			this.length--;
-			this.heap[this.length] = null;
-			int parentIndex = getParentIndex(index);
-			if (this.heap[index].getKey() > this.heap[parentIndex].getKey())
-				heapify_up(index);
-			else
-				heapify_down(index);
+		public void rebuild() {
+			for (int i = 0; i < this.dirtyCount; i++)
+				this.isDirty[this.dirty[i]] = false;
+			this.dirtyCount = 0;
+			build(false);
 		}
 		
 		/**
-         * Returns the index of the left child.
+         * Recomputes the winners of all the inner nodes, one level at a time from the deepest one, the nodes of
+         * a level possibly in parallel.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @param parentIndex
-		 * @return the index of the left child.
+	     * Time Complexity: Θ(capacity), and O(capacity / p + log(capacity)^2) on p cores in parallel.
+		 * @param parallel
 		 */
-        private int getLeftChildIndex(int parentIndex) {
-		    return 2 * parentIndex + 1;
-        }
-
+		private void build(boolean parallel) {
+			for (int level = this.capacity >>> 1; level > 0; level >>>= 1)
+				RangeTask.run(level, 2 * level, (from, to) -> {
+					for (int node = from; node < to; node++)
+						this.tree[node] = winner(this.tree[2 * node], this.tree[2 * node + 1]);
+				}, parallel);
+		}
+		
 		/**
-         * Returns the index of the right child.
+         * Returns the winner of a match.
 		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @param parentIndex
-		 * @return the index of the right child.
+		 * @param slot1 – a slot, or -1.
+		 * @param slot2 – a slot, or -1.
+		 * @return the slot with the larger key, slot1 on a tie, or -1 if both are -1.
 		 */
-        private int getRightChildIndex(int parentIndex) {
-		    return 2 * parentIndex + 2;
-        }
+		private int winner(int slot1, int slot2) {
+			if (slot1 == -1)
+				return slot2;
+			if (slot2 == -1)
+				return slot1;
+			return (this.keys[slot2] > this.keys[slot1]) ? slot2 : slot1;
+		}
 		
 		/**
-         * Returns the index of the parent.
+         * Replays the matches on the path from the leaf of the slot to the root. With prune, the replay stops
+         * at a node that keeps its winner, unless the winner is the slot itself: the rest of the path did not
+         * see the slot, which is only right when the rest of the tree is up to date.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @param childIndex
-		 * @return the index of the parent.
+	     * Time Complexity: Θ(log(n)) in W.C.
+		 * @param slot
+		 * @param prune – whether to stop early.
+		 * @return the number of nodes replayed.
 		 */
-        private int getParentIndex(int childIndex) {
-        	return (childIndex - 1) / 2;
-        }
+		private int replay(int slot, boolean prune) {
+			int[] tree = this.tree;
+			int node = (this.capacity + slot) >>> 1, winner, levels = 0;
+			while (node > 0) {
+				winner = winner(tree[2 * node], tree[2 * node + 1]);
+				levels++;
+				if (prune && (tree[node] == winner) && (winner != slot))
+					break;
+				tree[node] = winner;
+				node >>>= 1;
+			}
+			return levels;
+		}
 		
 		/**
-         * Swaps heap[index1] with heap[index2].
+         * Replays the path of the slot, or marks the slot in lazy mode.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @param index1
-		 * @param index2
+	     * Time Complexity: O(log(n)).
+		 * @param slot
 		 */
-        private void swap(int index1, int index2) {
-		    HeapNode tmp = this.heap[index1];
-		    this.heap[index1] = this.heap[index2];
-		    this.heap[index2] = tmp;
-		    this.heap[index1].index = index1;
-		    this.heap[index2].index = index2;
-        }
+		private void update(int slot) {
+			if (this.lazy)
+				markDirty(slot);
+			else if (GraphMetrics.ENABLED)
+				GraphMetrics.SIFT_LEVELS.record(replay(slot, true));
+			else
+				replay(slot, true);
+		}
 		
-        /**
-         * Restores the heap property by comparing and possibly swapping a node with its parent.
+		/**
+         * Marks the slot for the next repair of the tree.
 		 * <p>
-	     * Time Complexity: Θ(log(n)) in W.C.
-		 * @param index
+	     * Time Complexity: Θ(1).
+		 * @param slot
 		 */
-		private void heapify_up(int index) {
-			int parentIndex = getParentIndex(index);
-			while ((index > 0) && (this.heap[index].getKey() > this.heap[parentIndex].getKey())) {
-				swap(index, parentIndex);
-				index = parentIndex;
-				parentIndex = getParentIndex(index);
+		private void markDirty(int slot) {
+			if (!this.isDirty[slot]) {
+				this.isDirty[slot] = true;
+				this.dirty[this.dirtyCount++] = slot;
 			}
 		}
 		
-        /**
-         * Restores the heap property by recursively comparing and possibly swapping a node with one of its children.
+		/**
+         * Writes the slots with the k largest keys into slots[0..k-1], largest first, without changing the tree.
+         * The candidates are kept in a frontier, a binary heap of nodes ordered by the keys of their winners:
+         * popping a node yields its winner, and the siblings along the path down to the leaf of the winner
+         * become candidates, since they hold the best of the rest of the subtree of the node.
 		 * <p>
-	     * Time Complexity: Θ(log(n)) in W.C.
-		 * @param index
+	     * Time Complexity: Θ(k log(n) log(k log(n))).
+		 * @param k
+		 * @param slots – the buffer for the result.
+		 * @return the number of slots written, i.e. min(k, length, slots.length).
 		 */
-		private void heapify_down(int index) {
-			int leftIndex = getLeftChildIndex(index);
-			int rightIndex = getRightChildIndex(index);
-			int max = index;
-			if (rightIndex < this.length) {
-				if (this.heap[leftIndex].getKey() > this.heap[rightIndex].getKey())
-					max = leftIndex;
-				else
-					max = rightIndex;
-			}
-			else if (leftIndex < this.length)
-				max = leftIndex;
-			if (this.heap[max].getKey() > this.heap[index].getKey()) {
-				swap(index, max);
-				heapify_down(max);
+		public int topK(int k, int[] slots) {
+			k = Math.min(k, Math.min(this.length, slots.length));
+			if (k <= 0)
+				return 0;
+			if (this.dirtyCount > 0)
+				flush();
+			int bound = k * Integer.numberOfTrailingZeros(this.capacity) + 1;
+			if (this.frontier.length < bound)
+				this.frontier = new int[Math.max(bound, 2 * this.frontier.length)];
+			int[] frontier = this.frontier;
+			int size = 1, node, slot, child;
+			frontier[0] = 1;
+			for (int count = 0; count < k; count++) {
+				node = frontier[0];
+				slot = this.tree[node];
+				slots[count] = slot;
+				frontier[0] = frontier[--size];
+				siftFrontierDown(size);
+				for (; node < this.capacity; node = child) {
+					child = (this.tree[2 * node] == slot) ? 2 * node : 2 * node + 1;
+					if (this.tree[child ^ 1] != -1) {
+						frontier[size] = child ^ 1;
+						siftFrontierUp(size++);
+					}
+				}
 			}
+			return k;
 		}
 		
 		/**
-         * Heapifies the array bottom‐up.
+         * Restores the frontier heap property by moving frontier[0] down.
 		 * <p>
-	     * Time Complexity: Θ(length).
+	     * Time Complexity: Θ(log(size)) in W.C.
+		 * @param size – the size of the frontier.
 		 */
-		public void arrayToMaxHeap() {
-			if (this.length == 0)
-				return;
-			int last = this.length / 2;
-			for (int i = last; i >= 0; i--)
-				heapify_down(i);
+		private void siftFrontierDown(int size) {
+			int[] frontier = this.frontier;
+			int index = 0, child, value = frontier[0];
+			while ((child = 2 * index + 1) < size) {
+				if ((child + 1 < size) && (this.keys[this.tree[frontier[child + 1]]] > this.keys[this.tree[frontier[child]]]))
+					child++;
+				if (this.keys[this.tree[frontier[child]]] <= this.keys[this.tree[value]])
+					break;
+				frontier[index] = frontier[child];
+				index = child;
+			}
+			frontier[index] = value;
 		}
-    }
-	
-    /**
-     * This class represents a node for the Max Heap.
-     */
-	public class HeapNode {
-		private int key; // the neighborhood weight of the node in the graph.
-		private final int id; // the id of the graph node.
-		private int index; // index in heap array.
 		
 		/**
-		 * Constructs a HeapNode with a key, an id and an index.
-	     * <p>
-	     * Time Complexity: Θ(1).
-		 * @param key
-		 * @param id
+         * Restores the frontier heap property by moving frontier[index] up.
+		 * <p>
+	     * Time Complexity: Θ(log(index)) in W.C.
 		 * @param index
 		 */
-		public HeapNode(int key, int id, int index) {
-			this.key = key;
-			this.id = id;
-			this.index = index;
+		private void siftFrontierUp(int index) {
+			int[] frontier = this.frontier;
+			int parent, value = frontier[index];
+			while ((index > 0) && (this.keys[this.tree[frontier[parent = (index - 1) / 2]]] < this.keys[this.tree[value]])) {
+				frontier[index] = frontier[parent];
+				index = parent;
+			}
+			frontier[index] = value;
 		}
-
+		
 		/**
-         * Returns the key of the node.
+         * Returns the key of the slot.
 		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @return the key
+		 * @param slot
+		 * @return the key of the slot.
 		 */
-		public int getKey() {
-			return this.key;
+		public int getKey(int slot) {
+			return this.keys[slot];
 		}
-
+		
 		/**
-         * Sets the key of the node.
+         * Returns the keys of the slots.
 		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @param key the key to set
+		 * @return the keys
 		 */
-		public void setKey(int key) {
-			this.key = key;
+		public int[] getKeys() {
+			return this.keys;
 		}
-
+		
 		/**
-         * Returns the index of the node.
+         * Returns the number of slots currently in the tree.
 		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @return the index
+		 * @return the length
 		 */
-		public int getIndex() {
-			return this.index;
+		public int getLength() {
+			return this.length;
 		}
-
+		
 		/**
-         * Sets the index of the node in the heap array.
+         * Returns the slots of the tree in increasing order, read off the leaves.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @param index the index to set
+	     * Time Complexity: Θ(capacity).
+		 * @return a new array of the length slots.
 		 */
-		public void setIndex(int index) {
-			this.index = index;
+		public int[] getSlots() {
+			int[] slots = new int[this.length];
+			for (int leaf = this.capacity, count = 0; count < this.length; leaf++)
+				if (this.tree[leaf] != -1)
+					slots[count++] = this.tree[leaf];
+			return slots;
 		}
-
+		
 		/**
-         * Returns the id of the node.
+         * Returns whether the slot is currently in the tree.
 		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @return the id of the node
+		 * @param slot
+		 * @return 'true' if the slot is in the tree, otherwise 'false'.
 		 */
-		public int getId() {
-			return this.id;
+		public boolean contains(int slot) {
+			return (slot < this.capacity) && (this.tree[this.capacity + slot] != -1);
 		}
-	}
-
-	/**
-     * This class represents a node for the Graph with adjacency DDL.
-     */
-    public class GraphNode {
-    	private final int index; // index of the node in the graph array.
-    	private final Node node;
-    	private DoublyLinkedList<NeighborNode> neighbors; // adjacency list.
-    	
+		
 		/**
-		 * Constructs a GraphNode with an index, a Node and a DLL.
-	     * <p>
+         * Sets the write barrier of the open snapshots.
+		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @param index
-		 * @param node
+		 * @param cow
 		 */
-		public GraphNode(int index, Node node) {
-			this.index = index;
-			this.node = node;
-			this.neighbors = new DoublyLinkedList<>();
+		public void setCopyOnWrite(CopyOnWrite cow) {
+			this.cow = cow;
 		}
-
+		
 		/**
-		 * Returns the index.
-	     * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the index
+         * Increases the key of the slot by inc.
+		 * <p>
+	     * Time Complexity: O(log(n)).
+		 * @param slot
+		 * @param inc
 		 */
-		public int getIndex() {
-			return this.index;
+		public void increaseKey(int slot, int inc) {
+			if (this.cow != null)
+				this.cow.save(this.keys, slot);
+			this.keys[slot] += inc;
+			update(slot);
 		}
-
+		
 		/**
-         * Returns the node.
+         * Decreases the key of the slot by dec.
 		 * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the node
+	     * Time Complexity: O(log(n)).
+		 * @param slot
+		 * @param dec
 		 */
-		public Node getNode() {
-			return this.node;
+		public void decreaseKey(int slot, int dec) {
+			if (this.cow != null)
+				this.cow.save(this.keys, slot);
+			this.keys[slot] -= dec;
+			update(slot);
 		}
-
+		
 		/**
-         * Returns the id of the node.
+         * Inserts a new slot with the given key, growing the arrays geometrically if the slot is beyond them;
+         * doubling the leaves rebuilds the tree.
 		 * <p>
-	     * Time Complexity: Θ(1).
-         * @return the id of the node.
+	     * Amortized Time Complexity: O(log(n)).
+		 * @param slot – a slot that is not in the tree.
+		 * @param key
 		 */
-		public int getId() {
-			return this.node.getId();
+		public void insert(int slot, int key) {
+			if (slot >= this.keys.length) {
+				int capacity = Math.max(slot + 1, 2 * this.keys.length);
+				this.keys = Arrays.copyOf(this.keys, capacity);
+				if (this.isDirty != null) {
+					this.isDirty = Arrays.copyOf(this.isDirty, capacity);
+					this.dirty = Arrays.copyOf(this.dirty, capacity);
+				}
+			}
+			if (slot >= this.capacity) {
+				int capacity = getCapacity(slot + 1);
+				int[] tree = new int[2 * capacity];
+				System.arraycopy(this.tree, this.capacity, tree, capacity, this.capacity);
+				Arrays.fill(tree, capacity + this.capacity, 2 * capacity, -1);
+				this.tree = tree;
+				this.capacity = capacity;
+				build(false);
+			}
+			if (this.cow != null)
+				this.cow.save(this.keys, slot);
+			this.keys[slot] = key;
+			this.tree[this.capacity + slot] = slot;
+			this.length++;
+			update(slot);
 		}
-
+		
 		/**
-         * Returns the weight of the node.
+         * Changes the key of the slot by delta without replaying its path.
+         * rebuild must be called before the tree is used again.
 		 * <p>
 	     * Time Complexity: Θ(1).
-         * @return the weight of the node.
+		 * @param slot
+		 * @param delta
 		 */
-		public int getWeight() {
-			return this.node.getWeight();
+		public void addToKey(int slot, int delta) {
+			if (this.cow != null)
+				this.cow.save(this.keys, slot);
+			this.keys[slot] += delta;
 		}
-
+		
 		/**
-		 * Returns the DLL neighbors.
-	     * <p>
+         * Empties the leaf of the slot without replaying its path.
+         * rebuild must be called before the tree is used again.
+		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @return the neighbors
+		 * @param slot
+		 */
+		public void detach(int slot) {
+			this.tree[this.capacity + slot] = -1;
+			this.length--;
+		}
+		
+		/**
+         * Empties the leaf of the slot and replays its path.
+		 * <p>
+	     * Time Complexity: O(log(n)).
+		 * @param slot
 		 */
-		public DoublyLinkedList<NeighborNode> getNeighbors() {
-			return this.neighbors;
+		public void delete(int slot) {
+			this.tree[this.capacity + slot] = -1;
+			this.length--;
+			update(slot);
 		}
     }
     
     /**
-     * This class represents a node for the adjacency list.
+     * This interface represents an action on a range of indices.
      */
-    public class NeighborNode {
-    	private DLLNode<NeighborNode> neighbor;
-    	private final GraphNode neighborData;
-
-		/**
-		 * Constructs a NeighborNode with two pointers.
-	     * <p>
-	     * Time Complexity: Θ(1).
-		 * @param neighbor
-		 * @param neighborData
-		 */
-		public NeighborNode(DLLNode<NeighborNode> neighbor, GraphNode neighborData) {
-			this.neighbor = neighbor;
-			this.neighborData = neighborData;
-		}
-
-		/**
-		 * Returns the DLLNode neighbor.
-	     * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the neighbor
-		 */
-		public DLLNode<NeighborNode> getNeighbor() {
-			return this.neighbor;
-		}
-
-		/**
-		 * Sets the DLLNode neighbor.
-	     * <p>
-	     * Time Complexity: Θ(1).
-		 * @param neighbor the neighbor to set
-		 */
-		public void setNeighbor(DLLNode<NeighborNode> neighbor) {
-			this.neighbor = neighbor;
-		}
-
-		/**
-		 * Returns the graphNode neighborData.
-	     * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the neighborData
-		 */
-		public GraphNode getNeighborData() {
-			return this.neighborData;
-		}
+    public interface RangeAction {
+    	/**
+    	 * Applies the action to the indices from, ..., to - 1.
+    	 * @param from
+    	 * @param to
+    	 */
+    	void apply(int from, int to);
     }
-
+    
     /**
-     * This class represents a key–value for the DLL in the hash table.
+     * This class represents a fork–join task that applies an action to a range of indices, splitting the range
+     * in halves until the pieces are small enough.
      */
-    public class HashNode {
-    	private final int id;
-    	private final HeapNode heapNode;
-    	private final GraphNode graphNode;
+    public static class RangeTask extends RecursiveAction {
+    	private static final long serialVersionUID = 1L;
+    	private static final int GRAIN = 1 << 13; // the size of a range that is not split anymore.
+    	private final int from, to;
+    	private final RangeAction action;
     	
 		/**
-		 * Constructs a HashNode with id and two pointers.
-	     * <p>
+         * Constructs a task for the indices from, ..., to - 1.
+		 * <p>
 	     * Time Complexity: Θ(1).
-		 * @param id
-		 * @param heapNode
-		 * @param graphNode
+		 * @param from
+		 * @param to
+		 * @param action
 		 */
-		public HashNode(int id, HeapNode heapNode, GraphNode graphNode) {
-			this.id = id;
-			this.heapNode = heapNode;
-			this.graphNode = graphNode;
+		public RangeTask(int from, int to, RangeAction action) {
+			this.from = from;
+			this.to = to;
+			this.action = action;
 		}
-
+		
 		/**
-		 * Returns the id.
-	     * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the id
+         * Applies the action to the indices from, ..., to - 1 on the common fork–join pool, or in the calling
+         * thread if the range is small.
+		 * <p>
+	     * Time Complexity: Θ(to - from) work.
+		 * @param from
+		 * @param to
+		 * @param action
 		 */
-		public int getId() {
-			return this.id;
+		public static void run(int from, int to, RangeAction action) {
+			if (to - from <= GRAIN)
+				action.apply(from, to);
+			else
+				ForkJoinPool.commonPool().invoke(new RangeTask(from, to, action));
 		}
-
+		
 		/**
-		 * Returns the heapNode.
-	     * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the heapNode
+         * Applies the action to the indices from, ..., to - 1, in parallel as in run(from, to, action) or in the
+         * calling thread.
+		 * <p>
+	     * Time Complexity: Θ(to - from) work.
+		 * @param from
+		 * @param to
+		 * @param action
+		 * @param parallel
 		 */
-		public HeapNode getHeapNode() {
-			return this.heapNode;
+		public static void run(int from, int to, RangeAction action, boolean parallel) {
+			if (parallel)
+				run(from, to, action);
+			else
+				action.apply(from, to);
 		}
 
-		/**
-		 * Returns the graphNode.
-	     * <p>
-	     * Time Complexity: Θ(1).
-		 * @return the graphNode
-		 */
-		public GraphNode getGraphNode() {
-			return this.graphNode;
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= GRAIN) {
+				this.action.apply(this.from, this.to);
+				return;
+			}
+			int mid = (this.from + this.to) >>> 1;
+			invokeAll(new RangeTask(this.from, mid, this.action), new RangeTask(mid, this.to, this.action));
 		}
     }
+    
 }
-
-
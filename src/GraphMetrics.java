@@ -0,0 +1,230 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.ConstructorParameters;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * This class holds the opt‐in metrics of the hot paths of Graph, shared by all the graphs of the process:
+ * <ul>
+ * <li>the entries probed by every hash table lookup,</li>
+ * <li>the levels a node moved in every sift of a heap operation, or the nodes replayed by a tournament tree
+ * operation (not counting whole rebuilds),</li>
+ * <li>the adjacency entries visited by every deleteNode and deleteNodes,</li>
+ * <li>the latency in ns of the calls of addEdge and deleteNode that changed the graph, and of the calls of
+ * getNeighborhoodWeight and maxNeighborhoodWeight.</li>
+ * </ul>
+ * Each one is a log‐linear histogram, with 16 sub‐buckets per power of 2 (at most 1/16 relative error), in
+ * the spirit of HdrHistogram. The metrics are enabled by starting the JVM with -Dgraph.metrics=true, and
+ * are then exposed over JMX as the MXBean "Graph:type=GraphMetrics". ENABLED is a static final constant, so
+ * when it is off the JIT removes the instrumentation entirely.
+ */
+public class GraphMetrics implements GraphMetricsMXBean {
+	public static final boolean ENABLED = Boolean.getBoolean("graph.metrics");
+	public static final Histogram HASH_PROBES = new Histogram();
+	public static final Histogram SIFT_LEVELS = new Histogram();
+	public static final Histogram ADJACENCY_VISITS = new Histogram();
+	public static final Histogram ADD_EDGE = new Histogram();
+	public static final Histogram DELETE_NODE = new Histogram();
+	public static final Histogram GET_NEIGHBORHOOD_WEIGHT = new Histogram();
+	public static final Histogram MAX_NEIGHBORHOOD_WEIGHT = new Histogram();
+
+	static {
+		if (ENABLED) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new GraphMetrics(),
+						new ObjectName("Graph:type=GraphMetrics"));
+			}
+			catch (JMException e) {
+				throw new IllegalStateException("cannot register the graph metrics", e);
+			}
+		}
+	}
+
+	private GraphMetrics() {
+	}
+
+	@Override
+	public Summary getHashProbes() {
+		return HASH_PROBES.summarize();
+	}
+
+	@Override
+	public Summary getSiftLevels() {
+		return SIFT_LEVELS.summarize();
+	}
+
+	@Override
+	public Summary getAdjacencyVisits() {
+		return ADJACENCY_VISITS.summarize();
+	}
+
+	@Override
+	public Summary getAddEdgeNanos() {
+		return ADD_EDGE.summarize();
+	}
+
+	@Override
+	public Summary getDeleteNodeNanos() {
+		return DELETE_NODE.summarize();
+	}
+
+	@Override
+	public Summary getGetNeighborhoodWeightNanos() {
+		return GET_NEIGHBORHOOD_WEIGHT.summarize();
+	}
+
+	@Override
+	public Summary getMaxNeighborhoodWeightNanos() {
+		return MAX_NEIGHBORHOOD_WEIGHT.summarize();
+	}
+
+	@Override
+	public void reset() {
+		for (Histogram histogram : new Histogram[] {HASH_PROBES, SIFT_LEVELS, ADJACENCY_VISITS, ADD_EDGE,
+				DELETE_NODE, GET_NEIGHBORHOOD_WEIGHT, MAX_NEIGHBORHOOD_WEIGHT})
+			histogram.reset();
+	}
+
+	/**
+	 * This class represents a log‐linear histogram of non‐negative values, safe to record into from many
+	 * threads. The values below 16 have a bucket each; above, every power of 2 is split into 16 buckets.
+	 */
+	public static class Histogram {
+		private static final int SUB_BITS = 4, SUB = 1 << SUB_BITS;
+		private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS + 1) * SUB);
+		private final AtomicLongArray totals = new AtomicLongArray(3); // the count, the sum and the max of the values.
+
+		/**
+		 * Records a value; negative values count as 0.
+		 * <p>
+		 * Time Complexity: Θ(1).
+		 * @param value
+		 */
+		public void record(long value) {
+			value = Math.max(0, value);
+			this.counts.incrementAndGet(index(value));
+			this.totals.incrementAndGet(0);
+			this.totals.addAndGet(1, value);
+			if (value > this.totals.get(2))
+				this.totals.accumulateAndGet(2, value, Math::max);
+		}
+
+		/**
+		 * @return the count, mean, some percentiles and the max of the recorded values; the percentiles are the
+		 * lower bounds of their buckets.
+		 */
+		public Summary summarize() {
+			long[] counts = new long[this.counts.length()];
+			long count = 0;
+			for (int i = 0; i < counts.length; i++)
+				count += counts[i] = this.counts.get(i);
+			long sum = this.totals.get(1);
+			return new Summary(count, (count == 0) ? 0 : (double) sum / count, percentile(counts, count, 0.5),
+					percentile(counts, count, 0.9), percentile(counts, count, 0.99), percentile(counts, count, 0.999),
+					this.totals.get(2));
+		}
+
+		/**
+		 * Empties the histogram.
+		 */
+		public void reset() {
+			for (int i = 0; i < this.counts.length(); i++)
+				this.counts.set(i, 0);
+			for (int i = 0; i < this.totals.length(); i++)
+				this.totals.set(i, 0);
+		}
+
+		/**
+		 * @param counts
+		 * @param count – the sum of counts.
+		 * @param p – in (0, 1].
+		 * @return the lower bound of the bucket of the value of rank ceil(p * count).
+		 */
+		private static long percentile(long[] counts, long count, double p) {
+			long rank = Math.max(1, (long) Math.ceil(p * count)), seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank)
+					return lowerBound(i);
+			}
+			return 0;
+		}
+
+		/**
+		 * @param value – non‐negative.
+		 * @return the bucket of the value.
+		 */
+		private static int index(long value) {
+			if (value < SUB)
+				return (int) value;
+			int exponent = 63 - Long.numberOfLeadingZeros(value);
+			return (exponent - SUB_BITS + 1) * SUB + (int) ((value >>> (exponent - SUB_BITS)) & (SUB - 1));
+		}
+
+		/**
+		 * @param index
+		 * @return the least value of the bucket.
+		 */
+		private static long lowerBound(int index) {
+			if (index < SUB)
+				return index;
+			int exponent = index / SUB + SUB_BITS - 1;
+			return (1L << exponent) | ((long) (index % SUB) << (exponent - SUB_BITS));
+		}
+	}
+
+	/**
+	 * This class represents a summary of a histogram, mapped to a CompositeData over JMX.
+	 */
+	public static class Summary {
+		private final long count, p50, p90, p99, p999, max;
+		private final double mean;
+
+		@ConstructorParameters({"count", "mean", "p50", "p90", "p99", "p999", "max"})
+		public Summary(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+			this.count = count;
+			this.mean = mean;
+			this.p50 = p50;
+			this.p90 = p90;
+			this.p99 = p99;
+			this.p999 = p999;
+			this.max = max;
+		}
+
+		public long getCount() {
+			return this.count;
+		}
+
+		public double getMean() {
+			return this.mean;
+		}
+
+		public long getP50() {
+			return this.p50;
+		}
+
+		public long getP90() {
+			return this.p90;
+		}
+
+		public long getP99() {
+			return this.p99;
+		}
+
+		public long getP999() {
+			return this.p999;
+		}
+
+		public long getMax() {
+			return this.max;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count = %d, mean = %.1f, p50 = %d, p90 = %d, p99 = %d, p99.9 = %d, max = %d",
+					this.count, this.mean, this.p50, this.p90, this.p99, this.p999, this.max);
+		}
+	}
+}
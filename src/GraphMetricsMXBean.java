@@ -0,0 +1,17 @@
+/**
+ * The JMX view of GraphMetrics: a summary of every histogram, and a reset.
+ */
+public interface GraphMetricsMXBean {
+	GraphMetrics.Summary getHashProbes();
+	GraphMetrics.Summary getSiftLevels();
+	GraphMetrics.Summary getAdjacencyVisits();
+	GraphMetrics.Summary getAddEdgeNanos();
+	GraphMetrics.Summary getDeleteNodeNanos();
+	GraphMetrics.Summary getGetNeighborhoodWeightNanos();
+	GraphMetrics.Summary getMaxNeighborhoodWeightNanos();
+
+	/**
+	 * Empties all the histograms.
+	 */
+	void reset();
+}
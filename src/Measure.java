@@ -81,4 +81,60 @@ public class Measure {
 			System.out.println("i = " + i + ", n = " + n + ", max_rank = " + max_rank);
 		}
 	}
+	
+	/**
+	 * Times addEdge and deleteNode of Graph for heap arities 2, 4 and 8, and for a tournament tree (printed
+	 * as arity 0), on the same random graphs, with n nodes of random weights, 4n random edges and n / 2
+	 * random deletions.
+	 */
+	public static void experiment3() {
+		int[] arities = {2, 4, 8, Graph.TOURNAMENT};
+		int n, m, v1, v2;
+		long start, addTime, deleteTime;
+		int[] src, dst, order;
+		Graph.Node[] nodes;
+		Graph g;
+		for (int i = 10; i < 22; i += 2) {
+			n = (int) Math.pow(2, i);
+			m = 4 * n;
+			nodes = new Graph.Node[n];
+			for (int j = 0; j < n; j++)
+				nodes[j] = new Graph.Node(j, rand.nextInt(1000));
+			src = new int[m];
+			dst = new int[m];
+			for (int j = 0; j < m; j++) {
+				do {
+					v1 = rand.nextInt(n);
+					v2 = rand.nextInt(n);
+				} while (v1 == v2);
+				src[j] = v1;
+				dst[j] = v2;
+			}
+			order = new int[n];
+			for (int j = 0; j < n; j++)
+				order[j] = j;
+			for (int j = n - 1; j > 0; j--) {
+				v1 = rand.nextInt(j + 1);
+				v2 = order[j];
+				order[j] = order[v1];
+				order[v1] = v2;
+			}
+			for (int arity : arities) {
+				addTime = deleteTime = Long.MAX_VALUE;
+				for (int rep = 0; rep < 5; rep++) { // the first repetitions warm up the JIT.
+					g = new Graph(nodes, arity);
+					start = System.nanoTime();
+					for (int j = 0; j < m; j++)
+						g.addEdge(src[j], dst[j]);
+					addTime = Math.min(addTime, System.nanoTime() - start);
+					start = System.nanoTime();
+					for (int j = 0; j < n / 2; j++)
+						g.deleteNode(order[j]);
+					deleteTime = Math.min(deleteTime, System.nanoTime() - start);
+				}
+				System.out.println("i = " + i + ", n = " + n + ", arity = " + arity + 
+						", addEdge = " + (addTime / m) + " ns, deleteNode = " + (deleteTime / (n / 2)) + " ns");
+			}
+		}
+	}
 }
@@ -0,0 +1,371 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents an append‐only log of the mutations of a Graph, for durability between snapshots.
+ * <p>
+ * Every successful addEdge, deleteNode, addNode, removeEdge or updateWeight of a graph the log is attached to (see Graph.setLog) is
+ * encoded as a fixed‐size record of 4 little‐endian ints: the operation, its two arguments (the second is 0
+ * for deleteNode, and they are the id and the weight for addNode and updateWeight) and a check value, so a record torn by a crash is recognized. The file starts with a header
+ * of the same size: the magic number, the version and two reserved zeros.
+ * <p>
+ * Records are buffered in a direct buffer and committed as a group, written and forced to the device,
+ * once groupSize records are pending or the oldest pending one is groupMicros old, whichever comes first;
+ * the age is checked on every append and by a background thread. A record is durable only once its group
+ * is committed. On startup, replay applies the log to a graph (usually loaded from the last snapshot)
+ * through the bulk paths addEdges and deleteNodes.
+ */
+public class OperationLog implements Closeable {
+	public static final int ADD_EDGE = 1, DELETE_NODE = 2, ADD_NODE = 3, REMOVE_EDGE = 4, UPDATE_WEIGHT = 5;
+	private static final int MAGIC = 0x474C4F47; // "GLOG".
+	private static final int VERSION = 1;
+	private static final int RECORD = 16; // bytes per record, and of the header.
+	private static final int BATCH = 1 << 16; // records per call of a bulk path during replay.
+	private final FileChannel channel;
+	private final ByteBuffer buffer; // the pending records.
+	private final long groupNanos;
+	private final ScheduledExecutorService flusher; // commits the records that got old, null if groupMicros is 0.
+	private long oldest; // System.nanoTime() of the oldest pending record.
+	private long committed = 0; // number of records committed since the log was opened.
+	private IOException failure; // the failure of a commit, after which the log refuses any further record.
+
+	/**
+	 * Opens the log file for appending, creating it if needed. A torn record at the end of the file, left by
+	 * a crash, is cut off.
+	 * @param path – the log file.
+	 * @param groupSize – the number of pending records that triggers a commit, at least 1.
+	 * @param groupMicros – the age of the oldest pending record that triggers a commit, or 0 to commit only by
+	 * size (and by commit and close).
+	 * @throws IOException if the file cannot be opened, or is not a log of a known version.
+	 */
+	public OperationLog(Path path, int groupSize, long groupMicros) throws IOException {
+		if (groupSize < 1)
+			throw new IllegalArgumentException("groupSize must be at least 1: " + groupSize);
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.groupNanos = TimeUnit.MICROSECONDS.toNanos(groupMicros);
+		this.buffer = ByteBuffer.allocateDirect(groupSize * RECORD).order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			long end = validLength(this.channel, path);
+			if (end == 0) {
+				this.buffer.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(0).flip();
+				write();
+				end = RECORD;
+			}
+			this.channel.truncate(end);
+			this.channel.position(end);
+		}
+		catch (IOException e) {
+			this.channel.close();
+			throw e;
+		}
+		if (groupMicros > 0) {
+			this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "operation-log-flusher");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.flusher.scheduleWithFixedDelay(this::commitIfOld, groupMicros, groupMicros, TimeUnit.MICROSECONDS);
+		}
+		else
+			this.flusher = null;
+	}
+
+	/**
+	 * Appends a record of addEdge(node1_id, node2_id).
+	 * <p>
+	 * Time Complexity: Θ(1), plus a commit once per group.
+	 * @param node1_id
+	 * @param node2_id
+	 * @throws UncheckedIOException if a commit fails.
+	 */
+	public void addEdge(int node1_id, int node2_id) {
+		append(ADD_EDGE, node1_id, node2_id);
+	}
+
+	/**
+	 * Appends a record of deleteNode(node_id).
+	 * <p>
+	 * Time Complexity: Θ(1), plus a commit once per group.
+	 * @param node_id
+	 * @throws UncheckedIOException if a commit fails.
+	 */
+	public void deleteNode(int node_id) {
+		append(DELETE_NODE, node_id, 0);
+	}
+
+	/**
+	 * Appends a record of addNode(new Node(node_id, weight)).
+	 * <p>
+	 * Time Complexity: Θ(1), plus a commit once per group.
+	 * @param node_id
+	 * @param weight
+	 * @throws UncheckedIOException if a commit fails.
+	 */
+	public void addNode(int node_id, int weight) {
+		append(ADD_NODE, node_id, weight);
+	}
+
+	/**
+	 * Appends a record of removeEdge(node1_id, node2_id).
+	 * <p>
+	 * Time Complexity: Θ(1), plus a commit once per group.
+	 * @param node1_id
+	 * @param node2_id
+	 * @throws UncheckedIOException if a commit fails.
+	 */
+	public void removeEdge(int node1_id, int node2_id) {
+		append(REMOVE_EDGE, node1_id, node2_id);
+	}
+
+	/**
+	 * Appends a record of updateWeight(node_id, weight).
+	 * <p>
+	 * Time Complexity: Θ(1), plus a commit once per group.
+	 * @param node_id
+	 * @param weight
+	 * @throws UncheckedIOException if a commit fails.
+	 */
+	public void updateWeight(int node_id, int weight) {
+		append(UPDATE_WEIGHT, node_id, weight);
+	}
+
+	/**
+	 * Writes the pending records and forces them to the device. After a failed commit, it is not known which
+	 * of the records reached the device, so the log fails every later append and commit.
+	 * @throws UncheckedIOException if the write fails, or failed before.
+	 */
+	public synchronized void commit() {
+		if (this.failure != null)
+			throw new UncheckedIOException(this.failure);
+		if (this.buffer.position() == 0)
+			return;
+		try {
+			int records = this.buffer.position() / RECORD;
+			this.buffer.flip();
+			write();
+			this.channel.force(false);
+			this.committed += records;
+		}
+		catch (IOException e) {
+			this.failure = e;
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Empties the log, e.g. right after a snapshot of the graph was saved.
+	 * Pending records are dropped.
+	 * @throws IOException if the file cannot be truncated.
+	 */
+	public synchronized void reset() throws IOException {
+		this.buffer.clear();
+		this.channel.truncate(RECORD);
+		this.channel.position(RECORD);
+		this.channel.force(false);
+	}
+
+	/**
+	 * @return the number of records committed since the log was opened.
+	 */
+	public synchronized long getCommitted() {
+		return this.committed;
+	}
+
+	/**
+	 * Commits the pending records and closes the file.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (this.flusher != null)
+			this.flusher.shutdown();
+		try {
+			commit();
+		}
+		catch (UncheckedIOException e) {
+			this.channel.close();
+			throw e.getCause();
+		}
+		this.channel.close();
+	}
+
+	/**
+	 * Applies the records of a log file to a graph, in order: maximal runs of records of the same operation
+	 * are applied by addEdges, deleteNodes or updateWeights, in batches, and the records of addNode and removeEdge one
+	 * by one. The graph should not have a log attached.
+	 * A torn record at the end of the file is ignored.
+	 * <p>
+	 * Average Time Complexity: the one of the bulk paths on the batches, Θ(r) to read r records.
+	 * @param path – the log file.
+	 * @param graph
+	 * @return the number of records applied.
+	 * @throws IOException if the file cannot be read, or is not a log of a known version.
+	 */
+	public static long replay(Path path, Graph graph) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long end = validLength(channel, path), count = 0;
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH * RECORD).order(ByteOrder.LITTLE_ENDIAN);
+			int[] src = new int[BATCH], dst = new int[BATCH];
+			int run = 0, size = 0, op, read = 0;
+			for (long position = RECORD; position < end; ) {
+				buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+				while (buffer.hasRemaining() && ((read = channel.read(buffer, position)) != -1))
+					position += read;
+				if (read == -1) // the file shrank meanwhile: only the whole records read are applied.
+					end = position;
+				buffer.flip();
+				buffer.limit(buffer.limit() / RECORD * RECORD);
+				while (buffer.hasRemaining()) {
+					op = buffer.getInt();
+					if ((op != run) || (size == BATCH)) {
+						apply(graph, run, src, dst, size);
+						run = op;
+						size = 0;
+					}
+					src[size] = buffer.getInt();
+					dst[size++] = buffer.getInt();
+					buffer.getInt();
+					count++;
+				}
+			}
+			apply(graph, run, src, dst, size);
+			return count;
+		}
+	}
+
+	/**
+	 * Applies a run of records of the same operation.
+	 * @param graph
+	 * @param op
+	 * @param src – the first arguments.
+	 * @param dst – the second arguments.
+	 * @param size – the number of records.
+	 */
+	private static void apply(Graph graph, int op, int[] src, int[] dst, int size) {
+		if (size == 0)
+			return;
+		if (op == ADD_EDGE)
+			graph.addEdges(src, dst, size);
+		else if (op == DELETE_NODE)
+			graph.deleteNodes(Arrays.copyOf(src, size));
+		else if (op == UPDATE_WEIGHT)
+			graph.updateWeights(Arrays.copyOf(src, size), Arrays.copyOf(dst, size));
+		else if (op == ADD_NODE)
+			for (int i = 0; i < size; i++)
+				graph.addNode(new Graph.Node(src[i], dst[i]));
+		else
+			for (int i = 0; i < size; i++)
+				graph.removeEdge(src[i], dst[i]);
+	}
+
+	/**
+	 * Checks the header of a log file and finds the end of its last whole, valid record. If the file shrinks
+	 * while it is read, its end is treated as a torn tail.
+	 * @param channel
+	 * @param path
+	 * @return the length of the valid prefix of the file, or 0 if the file is empty.
+	 * @throws IOException if the file cannot be read, or is not a log of a known version.
+	 */
+	private static long validLength(FileChannel channel, Path path) throws IOException {
+		long size = channel.size(), position = 0;
+		if (size == 0)
+			return 0;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BATCH * RECORD).order(ByteOrder.LITTLE_ENDIAN);
+		int op, a, b;
+		boolean shrunk = false;
+		while (!shrunk && (position + RECORD <= size)) {
+			buffer.clear().limit((int) Math.min(buffer.capacity(), (size - position) / RECORD * RECORD));
+			while (buffer.hasRemaining())
+				if (channel.read(buffer, position + buffer.position()) == -1) {
+					shrunk = true;
+					break;
+				}
+			buffer.flip();
+			buffer.limit(buffer.limit() / RECORD * RECORD);
+			if (position == 0) {
+				if (!buffer.hasRemaining())
+					break;
+				if (buffer.getInt() != MAGIC)
+					throw new IOException("not an operation log: " + path);
+				if (buffer.getInt() != VERSION)
+					throw new IOException("unsupported operation log version: " + path);
+				buffer.getLong();
+				position = RECORD;
+			}
+			while (buffer.hasRemaining()) {
+				op = buffer.getInt();
+				a = buffer.getInt();
+				b = buffer.getInt();
+				if ((op < ADD_EDGE) || (op > UPDATE_WEIGHT) || (buffer.getInt() != check(op, a, b)))
+					return position;
+				position += RECORD;
+			}
+		}
+		if (position == 0)
+			throw new IOException("not an operation log: " + path);
+		return position;
+	}
+
+	/**
+	 * @param op
+	 * @param a
+	 * @param b
+	 * @return the check value of a record.
+	 */
+	private static int check(int op, int a, int b) {
+		int h = op * 0x9E3779B1 ^ a;
+		h = h * 0x85EBCA77 ^ b;
+		return (h * 0xC2B2AE35) ^ (h >>> 16);
+	}
+
+	/**
+	 * Appends a record, and commits the group if it is full or old.
+	 * @param op
+	 * @param a
+	 * @param b
+	 */
+	private synchronized void append(int op, int a, int b) {
+		if (this.failure != null)
+			throw new UncheckedIOException(this.failure);
+		if (this.buffer.position() == 0)
+			this.oldest = System.nanoTime();
+		this.buffer.putInt(op).putInt(a).putInt(b).putInt(check(op, a, b));
+		if (!this.buffer.hasRemaining() || ((this.groupNanos > 0) && (System.nanoTime() - this.oldest >= this.groupNanos)))
+			commit();
+	}
+
+	/**
+	 * Commits the pending records if the oldest one is at least groupMicros old.
+	 */
+	private synchronized void commitIfOld() {
+		if ((this.failure != null) || !this.channel.isOpen())
+			return;
+		try {
+			if ((this.buffer.position() > 0) && (System.nanoTime() - this.oldest >= this.groupNanos))
+				commit();
+		}
+		catch (UncheckedIOException e) {
+			// kept in failure, and thrown by the next append or commit.
+		}
+	}
+
+	/**
+	 * Writes the flipped buffer at the position of the channel, and clears it.
+	 * @throws IOException
+	 */
+	private void write() throws IOException {
+		while (this.buffer.hasRemaining())
+			this.channel.write(this.buffer);
+		this.buffer.clear();
+	}
+}
@@ -1,7 +1,6 @@
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.PriorityQueue;
+import java.util.HashSet;
 
 /**
  * 
@@ -16,14 +15,15 @@ import java.util.PriorityQueue;
  * This class represents an “optimized” graph that efficiently maintains the heaviest neighborhood over
  * edge addition and vertex deletion.
  * It is more compact due to laziness and also usage of built‐in classes and data structures' implementations,
- * such as ArrayList, HashMap, LinkedList and PriorityQueue.
- * However, while time constants are probably lower, in some operations the time complexity is worse (even 
- * on average case), and it probably takes much more space. 
+ * such as ArrayList, HashMap and HashSet.
+ * The heap is an ArrayList of nodes in which every node knows its own index, so a changed node is sifted in
+ * place instead of being removed by a linear search and added back; the neighbors of a node are a HashSet.
+ * The time complexity is the same as Graph's on average, while it probably takes much more space.
  *
  */
 public class OptGraph {
 	private int numEdges = 0;
-	private PriorityQueue<OptNode> maxHeap;
+	private IndexedHeap maxHeap;
 	private HashMap<Integer, OptNode> dict;
 	
 	/**
@@ -38,7 +38,7 @@ public class OptGraph {
 			heaps.add(optNode);
 			this.dict.put(optNode.getId(), optNode);
 		}
-		this.maxHeap = new PriorityQueue<OptNode>(heaps);
+		this.maxHeap = new IndexedHeap(heaps);
 	}
 
     /**
@@ -69,13 +69,30 @@ public class OptGraph {
         return optNode.getNeighborWeight();
     }
 
+    /**
+     * given a node id of a node in the graph, this method returns the ids of the neighbors of that node.
+     * <p>
+     * Average Time Complexity: Θ(deg(Node) + 1).
+     * @param node_id – an id of a node.
+     * @return a new set of the ids of the neighbors, or 'null' if there is no node of that id.
+     */
+    public HashSet<Integer> getNeighbors(int node_id) {
+        OptNode optNode = this.dict.get(node_id); // Θ(1) on average.
+        if (optNode == null)
+        	return null;
+        HashSet<Integer> ids = new HashSet<Integer>();
+        for (OptNode neighbor : optNode.getNeighbors())
+        	ids.add(neighbor.getId());
+        return ids;
+    }
+
     /**
      * This function adds an edge between the two nodes whose ids are specified.
      * If one of these nodes is not in the graph, the function does nothing.
      * The two nodes must be distinct; otherwise, the function does nothing.
-     * You may assume that if the two nodes are in the graph, there exists no edge between them prior to the call.
+     * If the edge already exists, the function does nothing.
      * <p>
-     * Time Complexity: Θ(n).
+     * Average Time Complexity: Θ(log(n)).
      *
      * @param node1_id – the id of the first node.
      * @param node2_id – the id of the second node.
@@ -88,12 +105,11 @@ public class OptGraph {
         OptNode oNode2 = this.dict.get(node2_id); // Θ(1) on average.
         if ((oNode1 == null) || (oNode2 == null))
         	return false;
-        oNode1.addNeighbor(oNode2);
-        oNode2.addNeighbor(oNode1);
-        this.maxHeap.remove(oNode1);
-        this.maxHeap.add(oNode1);
-        this.maxHeap.remove(oNode2);
-        this.maxHeap.add(oNode2);
+        if (!oNode1.addNeighbor(oNode2)) // Θ(1) on average.
+        	return false; // the edge already exists.
+        this.maxHeap.update(oNode1); // Θ(log(n)), before the key of another node changes.
+        oNode2.addNeighbor(oNode1); // Θ(1) on average.
+        this.maxHeap.update(oNode2); // Θ(log(n)).
         this.numEdges++;
         return true;
     }
@@ -101,7 +117,7 @@ public class OptGraph {
     /**
      * Given the id of a node in the graph, deletes the node of that id from the graph, if it exists.
      * <p>
-     * Average Time Complexity: Θ(n log(n)).
+     * Average Time Complexity: Θ((deg(Node) + 1)log(n)).
      *
      * @param node_id – the id of the node to delete.
      * @return returns 'true' if the function deleted a node, otherwise returns 'false'
@@ -111,11 +127,10 @@ public class OptGraph {
         if (optNode == null)
         	return false;
         this.dict.remove(node_id); // Θ(1) on average.
-        this.maxHeap.remove(optNode);
+        this.maxHeap.remove(optNode); // Θ(log(n)).
         for (OptNode neighbor : optNode.getNeighbors()) {
-        	neighbor.removeNeighbor(optNode);
-            this.maxHeap.remove(neighbor);
-            this.maxHeap.add(neighbor);
+        	neighbor.removeNeighbor(optNode); // Θ(1) on average.
+            this.maxHeap.update(neighbor); // Θ(log(n)).
         	this.numEdges--;
         }
         optNode.getNeighbors().clear();
@@ -142,11 +157,117 @@ public class OptGraph {
 		return this.numEdges;
 	}
 	
+	/**
+	 * This class represents a binary heap of nodes, heaviest neighborhood first, on top of an ArrayList.
+	 * Every node keeps its index in the list, so it can be sifted or removed without searching for it.
+	 */
+	public class IndexedHeap {
+		private final ArrayList<OptNode> heap;
+		
+		/**
+		 * Heapifies the given list of nodes.
+		 * <p>
+	     * Time Complexity: Θ(n).
+		 * @param nodes
+		 */
+		public IndexedHeap(ArrayList<OptNode> nodes) {
+			this.heap = nodes;
+			for (int i = 0; i < nodes.size(); i++)
+				nodes.get(i).heapIndex = i;
+			for (int i = nodes.size() / 2 - 1; i >= 0; i--)
+				siftDown(i);
+		}
+		
+		/**
+		 * @return the node of maximum neighborhood weight, or null if the heap is empty.
+		 */
+		public OptNode peek() {
+			return this.heap.isEmpty() ? null : this.heap.get(0);
+		}
+		
+		/**
+		 * Restores the place of a node in the heap after its neighborhood weight changed.
+		 * <p>
+	     * Time Complexity: Θ(log(n)) in W.C.
+		 * @param node
+		 */
+		public void update(OptNode node) {
+			int i = node.heapIndex;
+			if (i < 0)
+				return;
+			if (!siftUp(i))
+				siftDown(i);
+		}
+		
+		/**
+		 * Removes a node from the heap, if it is in it.
+		 * <p>
+	     * Time Complexity: Θ(log(n)) in W.C.
+		 * @param node
+		 */
+		public void remove(OptNode node) {
+			int i = node.heapIndex;
+			if (i < 0)
+				return;
+			OptNode last = this.heap.remove(this.heap.size() - 1);
+			node.heapIndex = -1;
+			if (last == node)
+				return;
+			set(i, last);
+			update(last);
+		}
+		
+		/**
+		 * @param i
+		 * @return whether the node at index i moved up.
+		 */
+		private boolean siftUp(int i) {
+			OptNode node = this.heap.get(i);
+			int start = i, parent;
+			while (i > 0) {
+				parent = (i - 1) / 2;
+				if (this.heap.get(parent).compareTo(node) <= 0)
+					break;
+				set(i, this.heap.get(parent));
+				i = parent;
+			}
+			set(i, node);
+			return i != start;
+		}
+		
+		/**
+		 * @param i
+		 */
+		private void siftDown(int i) {
+			OptNode node = this.heap.get(i);
+			int size = this.heap.size(), child;
+			while ((child = 2 * i + 1) < size) {
+				if ((child + 1 < size) && (this.heap.get(child + 1).compareTo(this.heap.get(child)) < 0))
+					child++;
+				if (node.compareTo(this.heap.get(child)) <= 0)
+					break;
+				set(i, this.heap.get(child));
+				i = child;
+			}
+			set(i, node);
+		}
+		
+		/**
+		 * @param i
+		 * @param node
+		 */
+		private void set(int i, OptNode node) {
+			this.heap.set(i, node);
+			node.heapIndex = i;
+		}
+	}
+	
 	public class OptNode implements Comparable<OptNode> {
 		private final int id;
 		private final int weight;
 		private int neighborWeight;
-		private LinkedList<OptNode> neighbors;
+		private HashSet<OptNode> neighbors;
+		private int heapIndex = -1; // the index of the node in the heap, -1 if it is not in it.
 		
 		/**
 		 * @param id
@@ -155,7 +276,7 @@ public class OptGraph {
 		public OptNode(int id, int weight) {
 			this.id = id;
 			this.neighborWeight = this.weight = weight;
-			this.neighbors = new LinkedList<OptGraph.OptNode>();
+			this.neighbors = new HashSet<OptGraph.OptNode>();
 		}
 		
 		/**
@@ -164,7 +285,7 @@ public class OptGraph {
 		public OptNode(Graph.Node node) {
 			this.id = node.getId();
 			this.neighborWeight = this.weight = node.getWeight();
-			this.neighbors = new LinkedList<OptGraph.OptNode>();
+			this.neighbors = new HashSet<OptGraph.OptNode>();
 		}
 
 		/**
@@ -191,7 +312,7 @@ public class OptGraph {
 		/**
 		 * @return the neighbors
 		 */
-		public LinkedList<OptNode> getNeighbors() {
+		public HashSet<OptNode> getNeighbors() {
 			return this.neighbors;
 		}
 
@@ -204,10 +325,13 @@ public class OptGraph {
 
 		/**
 		 * @param neighbor
+		 * @return 'true' if the neighbor was added, 'false' if it already was a neighbor.
 		 */
-		public void addNeighbor(OptNode neighbor) {
-			this.neighbors.addFirst(neighbor);
+		public boolean addNeighbor(OptNode neighbor) {
+			if (!this.neighbors.add(neighbor))
+				return false;
 			this.neighborWeight += neighbor.getWeight();
+			return true;
 		}
 
 		/**
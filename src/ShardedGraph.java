@@ -0,0 +1,590 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author almog
+ *
+ */
+
+/**
+ * This class represents a graph partitioned across shards, each owned by its own thread, that maintains the
+ * heaviest neighborhood over edge addition and vertex deletion.
+ * Every node id is hashed to one of S shards, which alone holds its weight, its neighbor list, its hash
+ * table entry and its place in a Max Heap, so a shard changes its own state without locks. One client thread
+ * issues the operations, which are routed to the shard of the node as messages; the effects on nodes of
+ * other shards are sent on as messages too. Every ordered pair of shards (and the client and every shard)
+ * has its own single‐producer single‐consumer ring of messages, and a shard handles all the messages that
+ * are waiting in a ring in one batch, publishing its position once.
+ * <p>
+ * An edge is added in three steps: the shard of the smaller id asks the shard of the larger one to link it,
+ * which links its side and answers with its node's weight, and the first shard then links its own side. The
+ * rings are FIFO, so a deletion that races with the linking is always seen after it and undoes it. Every
+ * link request is answered, so the first shard always forgets it.
+ * <p>
+ * Operations are asynchronous, and the queries read the state of the shards without locks. They are only
+ * meaningful between a sync and the next operation: sync reads the counters every shard publishes after its
+ * changes, which orders those changes before the queries, and the shards then stand still. Called while
+ * operations are in flight, the queries race with the shard threads and may return a value from the middle
+ * of an operation, e.g. a weight that counts only one side of a new edge.
+ */
+public class ShardedGraph implements AutoCloseable {
+	private static final long NONE = Long.MIN_VALUE; // published max of an empty shard.
+	private static final int ADD_EDGE = 1, DELETE_NODE = 2, LINK = 3, ACCEPT = 4, REJECT = 5, UNLINK = 6;
+	private final Shard[] shards;
+	private final Channel[] requests; // requests[s] carries the operations of the client to shard s.
+	private final int mask; // S - 1.
+	private long sent = 0; // number of messages the client sent.
+
+	/**
+	 * Initializes the graph on a given set of nodes, with a shard per core.
+	 * <p>
+	 * Time Complexity: O(N).
+	 * @param nodes – an array of node objects
+	 */
+	public ShardedGraph(Graph.Node[] nodes) {
+		this(nodes, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Initializes the graph on a given set of nodes and starts the threads of the shards. The created graph
+	 * is empty, i.e. it has no edges. You may assume that the ids of distinct nodes are distinct.
+	 * <p>
+	 * Time Complexity: O(N + S^2).
+	 * @param nodes – an array of node objects
+	 * @param shards – the number of shards, rounded up to a power of 2.
+	 */
+	public ShardedGraph(Graph.Node[] nodes, int shards) {
+		int S = Math.max(1, Integer.highestOneBit(Math.max(1, shards) - 1) << 1);
+		this.mask = S - 1;
+		int[] counts = new int[S];
+		for (Graph.Node node : nodes)
+			counts[shardOf(node.getId())]++;
+		Graph.Node[][] parts = new Graph.Node[S][];
+		for (int s = 0; s < S; s++)
+			parts[s] = new Graph.Node[counts[s]];
+		Arrays.fill(counts, 0);
+		for (Graph.Node node : nodes) {
+			int s = shardOf(node.getId());
+			parts[s][counts[s]++] = node;
+		}
+		Channel[][] channels = new Channel[S][S]; // channels[to][from], and channels[s][s] from the client.
+		this.requests = new Channel[S];
+		for (int to = 0; to < S; to++) {
+			for (int from = 0; from < S; from++)
+				channels[to][from] = new Channel();
+			this.requests[to] = channels[to][to];
+		}
+		this.shards = new Shard[S];
+		for (int s = 0; s < S; s++)
+			this.shards[s] = new Shard(this, s, parts[s], channels);
+		for (Shard shard : this.shards)
+			shard.thread.start();
+	}
+
+	/**
+	 * This method returns the node in the graph with the maximum neighborhood weight, out of the maxima the
+	 * shards published: a tournament over S values, played in a single pass.
+	 * <p>
+	 * Time Complexity: Θ(S).
+	 * @return a Node object representing the correct node, right after a sync (see the class comment). If
+	 * there is no node in the graph, returns 'null'.
+	 */
+	public Graph.Node maxNeighborhoodWeight() {
+		long best = NONE, max;
+		Shard winner = null;
+		for (Shard shard : this.shards) {
+			max = shard.max;
+			if (max > best) {
+				best = max;
+				winner = shard;
+			}
+		}
+		return (winner == null) ? null : winner.nodes[(int) best];
+	}
+
+	/**
+	 * given a node id of a node in the graph, this method returns the neighborhood weight of that node.
+	 * <p>
+	 * Average Time Complexity: Θ(1).
+	 * @param node_id – an id of a node.
+	 * @return the neighborhood weight of the node, right after a sync (see the class comment). Otherwise, the
+	 * function returns -1.
+	 */
+	public int getNeighborhoodWeight(int node_id) {
+		Shard shard = this.shards[shardOf(node_id)];
+		int slot = shard.table.get(node_id);
+		if ((slot == -1) || (shard.nodes[slot] == null))
+			return -1;
+		return shard.heap.getKey(slot);
+	}
+
+	/**
+	 * Sends the addition of an edge between the two nodes whose ids are specified, under the same rules as
+	 * Graph.addEdge, to the shard of the smaller id.
+	 * <p>
+	 * Amortized Time Complexity: Θ(1) for the client, and Θ(log(n)) on average for the shards.
+	 * @param node1_id – the id of the first node.
+	 * @param node2_id – the id of the second node.
+	 */
+	public void addEdge(int node1_id, int node2_id) {
+		if (node1_id == node2_id)
+			return;
+		int lo = Math.min(node1_id, node2_id), hi = Math.max(node1_id, node2_id);
+		request(shardOf(lo), ADD_EDGE, lo, hi);
+	}
+
+	/**
+	 * Sends the deletion of the node of the given id to its shard.
+	 * <p>
+	 * Amortized Time Complexity: Θ(1) for the client, and Θ((deg(Node) + 1)log(n)) on average for the shards.
+	 * @param node_id – the id of the node to delete.
+	 */
+	public void deleteNode(int node_id) {
+		request(shardOf(node_id), DELETE_NODE, node_id, 0);
+	}
+
+	/**
+	 * Waits until every operation sent so far, and every message it caused, has been handled. The sums of
+	 * the handled and of the sent messages are read in that order: each shard counts the messages a message
+	 * caused as sent before it counts the message as handled, so equal sums mean nothing is in flight.
+	 * <p>
+	 * Time Complexity: the time the shards take to handle the messages.
+	 */
+	public void sync() {
+		long handled, sent;
+		while (true) {
+			for (Channel channel : this.requests)
+				channel.flush();
+			handled = 0;
+			for (Shard shard : this.shards)
+				handled += shard.handled;
+			sent = this.sent;
+			for (Shard shard : this.shards)
+				sent += shard.sent;
+			if (handled == sent)
+				return;
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Returns the number of nodes currently in the graph.
+	 * <p>
+	 * Time Complexity: Θ(S).
+	 * @return the number of nodes in the graph, as the shards last published it: exact right after a sync.
+	 */
+	public int getNumNodes() {
+		int count = 0;
+		for (Shard shard : this.shards)
+			count += shard.numNodes;
+		return count;
+	}
+
+	/**
+	 * Returns the number of edges currently in the graph.
+	 * <p>
+	 * Time Complexity: Θ(S).
+	 * @return the number of edges in the graph, as the shards last published it: exact right after a sync.
+	 */
+	public int getNumEdges() {
+		long ends = 0;
+		for (Shard shard : this.shards)
+			ends += shard.ends;
+		return (int) (ends / 2);
+	}
+
+	/**
+	 * Waits for the operations sent so far, and stops the threads of the shards.
+	 */
+	@Override
+	public void close() {
+		sync();
+		for (Shard shard : this.shards)
+			shard.running = false;
+		for (Shard shard : this.shards) {
+			LockSupport.unpark(shard.thread);
+			try {
+				shard.thread.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Sends an operation to a shard. The client is not a consumer of any ring, so unlike a shard it can
+	 * wait for room, which bounds its overflow.
+	 * <p>
+	 * Amortized Time Complexity: Θ(1) while the shard keeps up.
+	 * @param s – the shard.
+	 * @param op
+	 * @param a
+	 * @param b
+	 */
+	private void request(int s, int op, int a, int b) {
+		Channel channel = this.requests[s];
+		channel.send(op, a, b, 0);
+		this.sent++;
+		while (channel.isBacklogged()) {
+			channel.flush();
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Returns the shard of an id, by the finalizer of MurmurHash3, so nearby ids are spread over the shards.
+	 * <p>
+	 * Time Complexity: Θ(1).
+	 * @param id
+	 * @return the index of the shard.
+	 */
+	private int shardOf(int id) {
+		int h = id;
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h & this.mask;
+	}
+
+	/**
+	 * This class represents a shard: the nodes of its ids, their neighbor lists and their Max Heap, and the
+	 * thread that owns them. A deleted node keeps its slot and its hash table entry, so a late answer to a
+	 * link request can still find its weight; only its node is set to null.
+	 */
+	private static class Shard implements Runnable {
+		private static final int SPINS = 1 << 10; // idle rounds before the thread parks.
+		private final ShardedGraph graph;
+		private final int index;
+		private final Thread thread;
+		private final Graph.Node[] nodes; // the node of each slot, null once it is deleted.
+		private final int[] ids, weights;
+		private final Graph.Hashtable table; // maps a node id to its slot, never changed after construction.
+		private final Graph.MaxHeap heap;
+		private final int[][] neighbors; // the ids of the neighbors of each slot.
+		private final int[] degrees;
+		private final Graph.EdgeIndex edges; // maps (slot, neighbor id) to the position in the neighbor list.
+		private final Graph.EdgeIndex pending; // the (slot, neighbor id) pairs waiting for an answer to LINK.
+		private final Channel[] in; // in[s] from shard s, and in[index] from the client.
+		private final Channel[] out; // out[s] to shard s, null at index.
+		private volatile long max = NONE; // (key << 32) | slot of the max of the heap, as published.
+		private volatile long sent = 0, handled = 0; // numbers of messages, as published.
+		private volatile int numNodes;
+		private volatile long ends = 0; // number of entries in the neighbor lists, as published.
+		private volatile boolean running = true;
+		private long sentCount = 0, handledCount = 0, endCount = 0;
+
+		/**
+		 * @param graph
+		 * @param index
+		 * @param nodes – the nodes of the ids of the shard.
+		 * @param channels – channels[to][from].
+		 */
+		public Shard(ShardedGraph graph, int index, Graph.Node[] nodes, Channel[][] channels) {
+			int N = nodes.length, S = channels.length;
+			this.graph = graph;
+			this.index = index;
+			this.nodes = nodes;
+			this.ids = new int[N];
+			this.weights = new int[N];
+			this.table = new Graph.Hashtable(N);
+			for (int slot = 0; slot < N; slot++) {
+				this.ids[slot] = nodes[slot].getId();
+				this.weights[slot] = nodes[slot].getWeight();
+				this.table.add(this.ids[slot], slot);
+			}
+			this.heap = new Graph.MaxHeap(this.weights.clone());
+			this.neighbors = new int[N][];
+			this.degrees = new int[N];
+			this.edges = new Graph.EdgeIndex(N);
+			this.pending = new Graph.EdgeIndex(16);
+			this.in = new Channel[S];
+			this.out = new Channel[S];
+			for (int s = 0; s < S; s++) {
+				this.in[s] = channels[index][s];
+				if (s != index)
+					this.out[s] = channels[s][index];
+			}
+			this.numNodes = N;
+			publishMax();
+			this.thread = new Thread(this, "graph-shard-" + index);
+			this.thread.setDaemon(true);
+		}
+
+		/**
+		 * Handles the waiting messages of every ring in batches, then flushes the outgoing rings and publishes
+		 * the state, and parks for a while once there has been nothing to do for a few rounds.
+		 */
+		@Override
+		public void run() {
+			int idle = 0;
+			while (this.running) {
+				boolean busy = false;
+				for (Channel channel : this.in)
+					busy |= channel.receive(this);
+				for (Channel channel : this.out)
+					if (channel != null)
+						channel.flush();
+				if (busy) {
+					idle = 0;
+					publishMax();
+					this.ends = this.endCount;
+					this.numNodes = this.heap.getLength();
+					this.sent = this.sentCount; // before handled, see sync.
+					this.handled = this.handledCount;
+				}
+				else if (++idle < SPINS)
+					Thread.onSpinWait();
+				else
+					LockSupport.parkNanos(50_000);
+			}
+		}
+
+		/**
+		 * Handles one message.
+		 * <p>
+		 * Average Time Complexity: Θ(log(n)), and Θ((deg(Node) + 1)log(n)) for DELETE_NODE.
+		 * @param op
+		 * @param a – the id of the node of this shard the message is about.
+		 * @param b – the id of the other node.
+		 * @param c – the weight of the other node, for LINK, ACCEPT and UNLINK.
+		 */
+		public void handle(int op, int a, int b, int c) {
+			this.handledCount++;
+			int slot = this.table.get(a);
+			if ((slot == -1) && (op != LINK)) // a request about an id that is not in the graph.
+				return;
+			switch (op) {
+			case ADD_EDGE: // a < b.
+				if ((this.nodes[slot] == null) || (this.edges.get(slot, b) != -1) || !this.pending.add(slot, b, 0))
+					return;
+				send(b, LINK, b, a, this.weights[slot]);
+				return;
+			case LINK:
+				if ((slot == -1) || (this.nodes[slot] == null) || (this.edges.get(slot, b) != -1)) {
+					send(b, REJECT, b, a, 0);
+					return;
+				}
+				link(slot, b);
+				this.heap.increaseKey(slot, c);
+				send(b, ACCEPT, b, a, this.weights[slot]);
+				return;
+			case ACCEPT:
+				this.pending.remove(slot, b);
+				if (this.nodes[slot] == null) { // deleted meanwhile, so the other side is undone.
+					send(b, UNLINK, b, a, this.weights[slot]);
+					return;
+				}
+				link(slot, b);
+				this.heap.increaseKey(slot, c);
+				return;
+			case REJECT:
+				this.pending.remove(slot, b);
+				return;
+			case UNLINK:
+				if (this.nodes[slot] == null)
+					return;
+				int i = this.edges.get(slot, b);
+				if (i == -1)
+					return;
+				unlink(slot, i);
+				this.heap.decreaseKey(slot, c);
+				return;
+			case DELETE_NODE:
+				if (this.nodes[slot] == null)
+					return;
+				this.heap.delete(slot);
+				this.nodes[slot] = null;
+				int weight = this.weights[slot], neighbor;
+				for (int j = this.degrees[slot] - 1; j >= 0; j--) {
+					neighbor = this.neighbors[slot][j];
+					this.edges.remove(slot, neighbor);
+					send(neighbor, UNLINK, neighbor, a, weight);
+				}
+				this.endCount -= this.degrees[slot];
+				this.degrees[slot] = 0;
+				this.neighbors[slot] = null;
+				return;
+			default:
+				throw new IllegalStateException("unknown message " + op);
+			}
+		}
+
+		/**
+		 * Sends a message about the node of the given id to its shard, or handles it right away if that is
+		 * this shard.
+		 * @param id – the node the message is about.
+		 * @param op
+		 * @param a
+		 * @param b
+		 * @param c
+		 */
+		private void send(int id, int op, int a, int b, int c) {
+			int to = this.graph.shardOf(id);
+			if (to == this.index) {
+				this.handledCount--; // handled inline, so it is neither sent nor handled as a message.
+				handle(op, a, b, c);
+				return;
+			}
+			this.out[to].send(op, a, b, c);
+			this.sentCount++;
+		}
+
+		/**
+		 * Appends a neighbor to the list of the slot.
+		 * <p>
+		 * Amortized Average Time Complexity: Θ(1).
+		 * @param slot
+		 * @param neighbor – the id of the neighbor.
+		 */
+		private void link(int slot, int neighbor) {
+			int degree = this.degrees[slot];
+			int[] list = this.neighbors[slot];
+			if (list == null)
+				list = this.neighbors[slot] = new int[2];
+			else if (degree == list.length)
+				list = this.neighbors[slot] = Arrays.copyOf(list, 2 * degree);
+			list[degree] = neighbor;
+			this.degrees[slot] = degree + 1;
+			this.edges.add(slot, neighbor, degree);
+			this.endCount++;
+		}
+
+		/**
+		 * Removes the i-th neighbor of the slot by moving the last one into its place.
+		 * <p>
+		 * Average Time Complexity: Θ(1).
+		 * @param slot
+		 * @param i
+		 */
+		private void unlink(int slot, int i) {
+			int[] list = this.neighbors[slot];
+			int last = --this.degrees[slot];
+			this.edges.remove(slot, list[i]);
+			if (i != last) {
+				list[i] = list[last];
+				this.edges.set(slot, list[i], i);
+			}
+			this.endCount--;
+		}
+
+		/**
+		 * Publishes the max of the heap, packed with its slot into a long, so it is never torn.
+		 * <p>
+		 * Time Complexity: Θ(1).
+		 */
+		private void publishMax() {
+			if (this.heap.getLength() == 0)
+				this.max = NONE;
+			else {
+				int slot = this.heap.getMax();
+				this.max = ((long) this.heap.getKey(slot) << 32) | slot;
+			}
+		}
+	}
+
+	/**
+	 * This class represents a single‐producer single‐consumer ring of messages of 4 ints. The producer writes
+	 * messages past the published tail and publishes them in batches, every BATCH messages and by flush; the
+	 * consumer handles every published message and then publishes its head once. The ring never blocks the producer: messages that
+	 * do not fit wait in an overflow buffer of the producer until a later flush, so two shards that send to
+	 * each other can never deadlock.
+	 */
+	private static class Channel {
+		private static final int CAPACITY = 1 << 12; // messages.
+		private static final int BATCH = 64; // messages per publication of the tail by send.
+		private final int[] ring = new int[4 * CAPACITY];
+		private volatile long head = 0; // the number of messages consumed, written by the consumer.
+		private volatile long tail = 0; // the number of messages published, written by the producer.
+		private long written = 0; // the number of messages in the ring, published or not, of the producer.
+		private long published = 0; // the last tail the producer published.
+		private long cachedHead = 0; // the last head the producer read.
+		private int[] overflow = new int[0]; // messages of the producer that did not fit, in order.
+		private int overflowSize = 0; // in ints.
+
+		/**
+		 * Writes a message into the ring, or into the overflow if the ring is full or the overflow is not
+		 * empty, without publishing it.
+		 * <p>
+		 * Amortized Time Complexity: Θ(1).
+		 */
+		public void send(int op, int a, int b, int c) {
+			if ((this.overflowSize == 0) && hasRoom()) {
+				int i = 4 * (int) (this.written++ & (CAPACITY - 1));
+				this.ring[i] = op;
+				this.ring[i + 1] = a;
+				this.ring[i + 2] = b;
+				this.ring[i + 3] = c;
+				if (this.written - this.published >= BATCH)
+					this.tail = this.published = this.written;
+				return;
+			}
+			if (this.overflowSize + 4 > this.overflow.length)
+				this.overflow = Arrays.copyOf(this.overflow, Math.max(64, 2 * this.overflow.length));
+			this.overflow[this.overflowSize++] = op;
+			this.overflow[this.overflowSize++] = a;
+			this.overflow[this.overflowSize++] = b;
+			this.overflow[this.overflowSize++] = c;
+		}
+
+		/**
+		 * Moves as much of the overflow into the ring as fits, and publishes the written messages.
+		 * <p>
+		 * Time Complexity: Θ(moved messages).
+		 */
+		public void flush() {
+			if (this.overflowSize > 0) {
+				int moved = 0;
+				while ((moved < this.overflowSize) && hasRoom()) {
+					System.arraycopy(this.overflow, moved, this.ring, 4 * (int) (this.written++ & (CAPACITY - 1)), 4);
+					moved += 4;
+				}
+				System.arraycopy(this.overflow, moved, this.overflow, 0, this.overflowSize - moved);
+				this.overflowSize -= moved;
+			}
+			if (this.published != this.written)
+				this.tail = this.published = this.written;
+		}
+
+		/**
+		 * Handles every published message, and publishes the new head.
+		 * <p>
+		 * Time Complexity: Θ(1) per message, plus the time of handling them.
+		 * @param shard – the consumer.
+		 * @return 'true' if there was a message, otherwise 'false'.
+		 */
+		public boolean receive(Shard shard) {
+			long head = this.head, tail = this.tail;
+			if (head == tail)
+				return false;
+			int[] ring = this.ring;
+			int i;
+			for (long k = head; k < tail; k++) {
+				i = 4 * (int) (k & (CAPACITY - 1));
+				shard.handle(ring[i], ring[i + 1], ring[i + 2], ring[i + 3]);
+			}
+			this.head = tail;
+			return true;
+		}
+
+		/**
+		 * @return 'true' if some messages of the producer wait in the overflow.
+		 */
+		public boolean isBacklogged() {
+			return this.overflowSize > 0;
+		}
+
+		/**
+		 * @return 'true' if the ring has room for a message, as far as the producer knows.
+		 */
+		private boolean hasRoom() {
+			if (this.written - this.cachedHead < CAPACITY)
+				return true;
+			this.cachedHead = this.head;
+			return this.written - this.cachedHead < CAPACITY;
+		}
+	}
+}
@@ -1,7 +1,18 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
 
 /**
  * 
@@ -27,8 +38,17 @@ public class Tester {
 	/**
 	 * @param args
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws InterruptedException, IOException {
 //		testExceptions();
+		testConcurrentGraph();
+		testSaveLoad();
+		testOperationLog();
+		testSnapshot();
+		testShardedGraph();
+		testTopK();
+		testParallelConstruction();
+		testEdgeIngester();
+		testNeighbors();
 		N = rand.nextInt(5000);
 		createGraphs(N);
 		if (N == 0)
@@ -174,6 +194,565 @@ public class Tester {
 		}
 	}
 	
+	/**
+	 * Adds random edges, some of them repeated, to a ConcurrentGraph from several threads at once, every thread
+	 * its own share, while another thread keeps reading; then deletes random nodes the same way. After each
+	 * phase, the graph is compared with a Graph that did the same operations sequentially.
+	 */
+	public static void testConcurrentGraph() throws InterruptedException {
+		int n = 1 + rand.nextInt(2000), threads = 4;
+		Graph.Node[] nodes = randomNodes(n);
+		ConcurrentGraph cg = new ConcurrentGraph(nodes, 1 + rand.nextInt(16));
+		Graph graph = new Graph(nodes);
+		Pair[] pairs = new Pair[rand.nextInt(4 * n)];
+		for (int i = 0; i < pairs.length; i++)
+			pairs[i] = ((i > 0) && rand.nextInt(4) == 0) ? pairs[rand.nextInt(i)]
+					: new Pair(nodes[rand.nextInt(n)].getId(), nodes[rand.nextInt(n)].getId());
+		int[] deleted = new int[rand.nextInt(n + 1)];
+		for (int i = 0; i < deleted.length; i++)
+			deleted[i] = nodes[i].getId();
+		AtomicBoolean done = new AtomicBoolean(false);
+		Thread reader = new Thread(() -> {
+			int id, weight;
+			while (!done.get()) {
+				id = nodes[rand.nextInt(n)].getId();
+				weight = cg.getNeighborhoodWeight(id);
+				if ((weight != -1) && (weight < myWeight(Arrays.asList(nodes), id)))
+					System.out.println("concurrent read " + id + ": " + weight);
+				cg.maxNeighborhoodWeight();
+			}
+		});
+		reader.start();
+		runThreads(threads, t -> {
+			for (int i = t; i < pairs.length; i += threads)
+				if (rand.nextBoolean())
+					cg.addEdge(pairs[i].getFirst(), pairs[i].getSecond());
+				else
+					cg.addEdge(pairs[i].getSecond(), pairs[i].getFirst());
+		});
+		for (Pair pair : pairs)
+			graph.addEdge(pair.getFirst(), pair.getSecond());
+		compare("ConcurrentGraph addEdge", graph, Arrays.asList(nodes), cg::getNeighborhoodWeight, cg.getNumNodes(),
+				cg.getNumEdges(), cg.maxNeighborhoodWeight());
+		runThreads(threads, t -> {
+			for (int i = t; i < deleted.length; i += threads)
+				if (!cg.deleteNode(deleted[i]))
+					System.out.println("concurrent deleteNode " + deleted[i]);
+		});
+		for (int id : deleted)
+			graph.deleteNode(id);
+		done.set(true);
+		reader.join();
+		compare("ConcurrentGraph deleteNode", graph, Arrays.asList(nodes), cg::getNeighborhoodWeight, cg.getNumNodes(),
+				cg.getNumEdges(), cg.maxNeighborhoodWeight());
+	}
+	
+	/**
+	 * Saves a Graph, changed by random operations, loads it back and compares the two; then changes both the
+	 * same way and compares them again, and does the same once more over the first file. The heap arity is
+	 * random, and a tournament tree is tried too.
+	 */
+	public static void testSaveLoad() throws IOException {
+		int n = 1 + rand.nextInt(2000);
+		int[] arities = {2, 4, 8, Graph.TOURNAMENT};
+		List<Graph.Node> nodes = new ArrayList<>(Arrays.asList(randomNodes(n)));
+		Graph graph = new Graph(nodes.toArray(new Graph.Node[0]), arities[rand.nextInt(arities.length)]);
+		Path path = Files.createTempFile("graph", ".snapshot");
+		try {
+			for (int round = 0; round < 2; round++) {
+				randomOperations(rand.nextInt(4 * n), nodes, graph);
+				graph.setLazy(rand.nextBoolean());
+				graph.save(path);
+				Graph loaded = Graph.load(path);
+				compare("save and load", graph, nodes, loaded::getNeighborhoodWeight, loaded.getNumNodes(),
+						loaded.getNumEdges(), loaded.maxNeighborhoodWeight());
+				randomOperations(rand.nextInt(4 * n), nodes, graph, loaded);
+				compare("changes after load", graph, nodes, loaded::getNeighborhoodWeight, loaded.getNumNodes(),
+						loaded.getNumEdges(), loaded.maxNeighborhoodWeight());
+			}
+		}
+		finally {
+			Files.deleteIfExists(path);
+		}
+	}
+	
+	/**
+	 * Logs random operations on a Graph, replays the log on a new graph and compares the two; then saves a
+	 * snapshot, resets the log, logs more operations and replays them over the loaded snapshot. Finally, a
+	 * torn record is appended to the log, which replay and reopening must both ignore.
+	 */
+	public static void testOperationLog() throws IOException {
+		int n = 1 + rand.nextInt(2000);
+		Graph.Node[] initial = randomNodes(n);
+		List<Graph.Node> nodes = new ArrayList<>(Arrays.asList(initial));
+		Graph graph = new Graph(initial);
+		Path logPath = Files.createTempFile("graph", ".log"), snapshotPath = Files.createTempFile("graph", ".snapshot");
+		try {
+			Files.delete(logPath);
+			OperationLog log = new OperationLog(logPath, 1 + rand.nextInt(64), 0);
+			graph.setLog(log);
+			randomOperations(rand.nextInt(4 * n), nodes, graph);
+			log.commit();
+			Graph replayed = new Graph(initial);
+			OperationLog.replay(logPath, replayed);
+			compare("log replay", graph, nodes, replayed::getNeighborhoodWeight, replayed.getNumNodes(),
+					replayed.getNumEdges(), replayed.maxNeighborhoodWeight());
+			graph.save(snapshotPath);
+			log.reset();
+			randomOperations(rand.nextInt(4 * n), nodes, graph);
+			log.close();
+			graph.setLog(null);
+			long size = Files.size(logPath);
+			byte[] torn = new byte[1 + rand.nextInt(31)];
+			rand.nextBytes(torn);
+			Files.write(logPath, torn, StandardOpenOption.APPEND);
+			replayed = Graph.load(snapshotPath);
+			OperationLog.replay(logPath, replayed);
+			compare("snapshot and log replay", graph, nodes, replayed::getNeighborhoodWeight, replayed.getNumNodes(),
+					replayed.getNumEdges(), replayed.maxNeighborhoodWeight());
+			new OperationLog(logPath, 1, 0).close();
+			if (Files.size(logPath) != size)
+				System.out.println("torn tail: " + Files.size(logPath) + ", " + size);
+		}
+		finally {
+			Files.deleteIfExists(logPath);
+			Files.deleteIfExists(snapshotPath);
+		}
+	}
+	
+	/**
+	 * Takes a snapshot of a Graph changed by random operations, and keeps changing the graph while another
+	 * thread reads the snapshot. The snapshot is compared with a copy of the graph that stopped changing
+	 * when the snapshot was taken, during the changes by the reader and after them in full.
+	 */
+	public static void testSnapshot() throws InterruptedException {
+		int n = 1 + rand.nextInt(2000);
+		Graph.Node[] initial = randomNodes(n);
+		List<Graph.Node> nodes = new ArrayList<>(Arrays.asList(initial));
+		Graph graph = new Graph(initial), frozen = new Graph(initial);
+		randomOperations(rand.nextInt(4 * n), nodes, graph, frozen);
+		graph.setLazy(rand.nextBoolean());
+		Graph.Snapshot snapshot = graph.snapshot();
+		List<Graph.Node> seen = new ArrayList<>(nodes);
+		AtomicBoolean done = new AtomicBoolean(false);
+		Thread reader = new Thread(() -> {
+			int id;
+			while (!done.get()) {
+				id = seen.get(rand.nextInt(seen.size())).getId();
+				if ((snapshot.getNeighborhoodWeight(id) != frozen.getNeighborhoodWeight(id))
+						|| (snapshot.degree(id) != frozen.degree(id)))
+					System.out.println("snapshot read " + id + ": " + snapshot.getNeighborhoodWeight(id) + ", "
+							+ frozen.getNeighborhoodWeight(id));
+			}
+		});
+		reader.start();
+		randomOperations(rand.nextInt(8 * n), nodes, graph);
+		done.set(true);
+		reader.join();
+		compare("snapshot", frozen, nodes, snapshot::getNeighborhoodWeight, snapshot.getNumNodes(),
+				snapshot.getNumEdges(), frozen.maxNeighborhoodWeight());
+		int[] count = {0};
+		snapshot.forEachNode((node, weight) -> {
+			count[0]++;
+			if (weight != frozen.getNeighborhoodWeight(node.getId()))
+				System.out.println("snapshot node " + node.getId() + ": " + weight);
+		});
+		if (count[0] != frozen.getNumNodes())
+			System.out.println("snapshot nodes: " + count[0] + ", " + frozen.getNumNodes());
+		snapshot.close();
+	}
+	
+	/**
+	 * Sends random addEdge and deleteNode operations to a ShardedGraph and applies them to a Graph, and
+	 * compares the two after every sync. Some operations are on ids that are not in the graph, both below and
+	 * above every id, so the shards also see link requests for missing nodes.
+	 */
+	public static void testShardedGraph() {
+		int n = 1 + rand.nextInt(2000), a, b;
+		Graph.Node[] nodes = randomNodes(n);
+		Graph graph = new Graph(nodes);
+		try (ShardedGraph sg = new ShardedGraph(nodes, 1 + rand.nextInt(8))) {
+			for (int round = 0; round < 4; round++) {
+				for (int i = rand.nextInt(4 * n); i > 0; i--) {
+					a = randomId(nodes);
+					b = randomId(nodes);
+					if (rand.nextInt(8) == 0) {
+						graph.deleteNode(a);
+						sg.deleteNode(a);
+					}
+					else {
+						graph.addEdge(a, b);
+						sg.addEdge(a, b);
+					}
+				}
+				sg.sync();
+				compare("ShardedGraph", graph, Arrays.asList(nodes), sg::getNeighborhoodWeight, sg.getNumNodes(),
+						sg.getNumEdges(), sg.maxNeighborhoodWeight());
+			}
+		}
+	}
+	
+	/**
+	 * Changes a Graph and a copy of it by random operations, and compares topK of the graph with the sorted
+	 * neighborhood weights of the copy, for k = 0, 1, n and more than n, with both versions of topK. The
+	 * graph has a heap of every arity or a tournament tree, and is in lazy mode half of the time, so topK
+	 * must repair the structure first.
+	 */
+	public static void testTopK() {
+		int[] arities = {2, 4, 8, Graph.TOURNAMENT};
+		for (int arity : arities) {
+			for (int lazy = 0; lazy < 2; lazy++) {
+				int n = 1 + rand.nextInt(2000), k;
+				Graph.Node[] initial = randomNodes(n);
+				List<Graph.Node> nodes = new ArrayList<>(Arrays.asList(initial));
+				Graph graph = new Graph(initial, arity), expected = new Graph(initial);
+				graph.setLazy(lazy == 1);
+				for (int round = 0; round < 8; round++) {
+					randomOperations(rand.nextInt(2 * n), nodes, graph, expected);
+					k = (round < 4) ? round / 2 : expected.getNumNodes() + ((round < 6) ? 0 : 1 + rand.nextInt(n));
+					checkTopK("topK " + arity + ((lazy == 1) ? " lazy" : ""), graph, expected, nodes, k, round % 2 == 0);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Builds a Graph on the same random nodes in parallel and sequentially, with a heap of every arity and a
+	 * tournament tree, and compares the two, in full through topK too; then changes both by the same random
+	 * operations and compares them again. There are more nodes than a range that RangeTask does not split, so
+	 * the tasks, the concurrent inserts into the hash table and the heapify by levels all run.
+	 * Then builds a graph by fromEdges on random edges, with repeated edges, self‐loops and ids that no node
+	 * has, and compares it with a Graph and an OptGraph to which the same edges are added one by one.
+	 */
+	public static void testParallelConstruction() {
+		int n = (1 << 14) + rand.nextInt(1 << 14);
+		Graph.Node[] initial = randomNodes(n);
+		int[] arities = {2, 4, 8, Graph.TOURNAMENT};
+		for (int arity : arities) {
+			List<Graph.Node> nodes = new ArrayList<>(Arrays.asList(initial));
+			Graph sequential = new Graph(initial, arity, false), parallel = new Graph(initial, arity, true);
+			String name = "parallel construction " + arity;
+			compare(name, sequential, nodes, parallel::getNeighborhoodWeight, parallel.getNumNodes(),
+					parallel.getNumEdges(), parallel.maxNeighborhoodWeight());
+			checkTopK(name, parallel, sequential, nodes, n, false);
+			randomOperations(rand.nextInt(n), nodes, sequential, parallel);
+			compare(name + " changed", sequential, nodes, parallel::getNeighborhoodWeight, parallel.getNumNodes(),
+					parallel.getNumEdges(), parallel.maxNeighborhoodWeight());
+			checkTopK(name + " changed", parallel, sequential, nodes, parallel.getNumNodes(), true);
+		}
+		int m = rand.nextInt(4 * n), j;
+		int[] src = new int[m], dst = new int[m];
+		for (int i = 0; i < m; i++) {
+			j = rand.nextInt(i + 1);
+			if ((j < i) && (rand.nextInt(8) == 0)) { // a repeated edge, in either direction.
+				src[i] = rand.nextBoolean() ? src[j] : dst[j];
+				dst[i] = (src[i] == src[j]) ? dst[j] : src[j];
+			}
+			else {
+				src[i] = randomId(initial);
+				dst[i] = (rand.nextInt(16) == 0) ? src[i] : randomId(initial);
+			}
+		}
+		List<Graph.Node> nodes = new ArrayList<>(Arrays.asList(initial));
+		Graph built = Graph.fromEdges(initial, src, dst), added = new Graph(initial);
+		OptGraph optGraph = new OptGraph(initial);
+		for (int i = 0; i < m; i++)
+			if (added.addEdge(src[i], dst[i]) != optGraph.addEdge(src[i], dst[i]))
+				System.out.println("fromEdges OptGraph: addEdge " + src[i] + ", " + dst[i]);
+		compare("fromEdges", added, nodes, built::getNeighborhoodWeight, built.getNumNodes(), built.getNumEdges(),
+				built.maxNeighborhoodWeight());
+		compare("fromEdges OptGraph", added, nodes, optGraph::getNeighborhoodWeight, optGraph.getNumNodes(),
+				optGraph.getNumEdges(), optGraph.maxNeighborhoodWeight());
+		checkTopK("fromEdges", built, added, nodes, n, true);
+		randomOperations(rand.nextInt(n), nodes, added, built);
+		compare("fromEdges changed", added, nodes, built::getNeighborhoodWeight, built.getNumNodes(),
+				built.getNumEdges(), built.maxNeighborhoodWeight());
+	}
+	
+	/**
+	 * Writes random edges to an edge list file, with comments, blank lines, CRLF and LF line ends and no newline
+	 * at the end, and compares a Graph that ingests the file with one to which addEdges adds the same edges.
+	 * Then ingests files that end in a malformed line, which must fail with the number of that line. The
+	 * buffer and the batches are small, so ids and lines are split between reads.
+	 */
+	public static void testEdgeIngester() throws IOException {
+		int n = 1 + rand.nextInt(2000), m = 1 + rand.nextInt(4 * n);
+		Graph.Node[] nodes = randomNodes(n);
+		int[] src = new int[m], dst = new int[m];
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < m; i++) {
+			src[i] = randomId(nodes);
+			dst[i] = randomId(nodes);
+			if (rand.nextInt(8) == 0)
+				text.append(rand.nextBoolean() ? "\r\n" : "# a comment\n");
+			text.append(rand.nextBoolean() ? " " : "").append(src[i]).append(rand.nextBoolean() ? " " : "\t")
+					.append(dst[i]);
+			if (rand.nextInt(8) == 0)
+				text.append(" # edge ").append(i);
+			if (i < m - 1)
+				text.append(rand.nextBoolean() ? "\r\n" : "\n");
+		}
+		EdgeIngester ingester = new EdgeIngester(1 + rand.nextInt(64), 1 + rand.nextInt(64));
+		Path path = Files.createTempFile("graph", ".edges");
+		try {
+			Files.write(path, text.toString().getBytes(StandardCharsets.US_ASCII));
+			Graph ingested = new Graph(nodes), expected = new Graph(nodes);
+			long added = ingester.ingest(path, ingested);
+			if (added != expected.addEdges(src, dst, m))
+				System.out.println("ingest: added " + added + ", " + expected.getNumEdges());
+			compare("ingest", expected, Arrays.asList(nodes), ingested::getNeighborhoodWeight, ingested.getNumNodes(),
+					ingested.getNumEdges(), ingested.maxNeighborhoodWeight());
+			String[] malformed = {"1-2", "1 -2-3", "1", "1 2 3", "1 x", "-", "1 -", "4294967296 1", "1 # 2"};
+			for (String line : malformed) {
+				int good = rand.nextInt(4);
+				StringBuilder bad = new StringBuilder("# malformed\r\n");
+				for (int i = 0; i < good; i++)
+					bad.append(i).append(' ').append(i + 1).append(rand.nextBoolean() ? "\r\n" : "\n");
+				bad.append(line);
+				if (rand.nextBoolean())
+					bad.append(rand.nextBoolean() ? "\r\n" : "\n");
+				Files.write(path, bad.toString().getBytes(StandardCharsets.US_ASCII));
+				try {
+					ingester.ingest(path, new Graph(nodes));
+					System.out.println("ingest \"" + line + "\": no exception");
+				}
+				catch (IOException e) {
+					if (!e.getMessage().startsWith(path + ":" + (good + 2) + ": "))
+						System.out.println("ingest \"" + line + "\": " + e.getMessage());
+				}
+			}
+			System.out.println("Done! malformed lines ingested.");
+		}
+		finally {
+			Files.deleteIfExists(path);
+		}
+	}
+	
+	/**
+	 * Adds random edges to a Graph and an OptGraph and deletes random nodes from both, on ids that are not in
+	 * the graph too, and compares the neighbors of every node, deleted ones included, as NeighborCursor,
+	 * forEachNeighbor and hasEdge see them, with the neighbor set of the node in the OptGraph. hasEdge is asked
+	 * both ways, for every neighbor and for a random id.
+	 */
+	public static void testNeighbors() {
+		int n = 1 + rand.nextInt(2000), a, b, id, count;
+		Graph.Node[] nodes = randomNodes(n);
+		Graph graph = new Graph(nodes);
+		OptGraph optGraph = new OptGraph(nodes);
+		Graph.NeighborCursor cursor = new Graph.NeighborCursor(graph);
+		int[] buffer = new int[1 + rand.nextInt(16)];
+		List<Integer> visited = new ArrayList<>(), read = new ArrayList<>();
+		HashSet<Integer> expected;
+		boolean found;
+		for (int round = 0; round < 4; round++) {
+			for (int i = rand.nextInt(4 * n); i > 0; i--) {
+				a = randomId(nodes);
+				b = randomId(nodes);
+				if (rand.nextInt(8) == 0) {
+					if (graph.deleteNode(a) != optGraph.deleteNode(a))
+						System.out.println("neighbors: deleteNode " + a);
+				}
+				else if (graph.addEdge(a, b) != optGraph.addEdge(a, b))
+					System.out.println("neighbors: addEdge " + a + ", " + b);
+			}
+			for (Graph.Node node : nodes) {
+				id = node.getId();
+				expected = optGraph.getNeighbors(id);
+				visited.clear();
+				read.clear();
+				found = graph.forEachNeighbor(id, visited::add);
+				if ((found != (expected != null)) || (cursor.reset(id) != found))
+					System.out.println("neighbors: " + id + " found " + found + ", " + (expected != null));
+				while ((count = cursor.next(buffer)) > 0)
+					for (int i = 0; i < count; i++)
+						read.add(buffer[i]);
+				if (expected == null)
+					expected = new HashSet<>();
+				if ((visited.size() != expected.size()) || !expected.equals(new HashSet<>(visited)))
+					System.out.println("neighbors: forEachNeighbor " + id + " " + visited + ", " + expected);
+				if ((read.size() != expected.size()) || !expected.equals(new HashSet<>(read)))
+					System.out.println("neighbors: NeighborCursor " + id + " " + read + ", " + expected);
+				for (int neighbor : expected)
+					if (!graph.hasEdge(id, neighbor) || !graph.hasEdge(neighbor, id))
+						System.out.println("neighbors: hasEdge " + id + ", " + neighbor + " false");
+				b = randomId(nodes);
+				if ((graph.hasEdge(id, b) != expected.contains(b)) || (graph.hasEdge(b, id) != expected.contains(b)))
+					System.out.println("neighbors: hasEdge " + id + ", " + b + " " + graph.hasEdge(id, b));
+			}
+			System.out.println("Done! neighbors compared.");
+		}
+	}
+	
+	/**
+	 * Prints every difference between topK of a graph and the sorted neighborhood weights of the expected one:
+	 * the number of nodes, a repeated node, and the neighborhood weight at every place.
+	 * @param name – the name of the test.
+	 * @param graph
+	 * @param expected
+	 * @param nodes – the nodes so far, deleted ones included.
+	 * @param k
+	 * @param buffers – whether to call the version of topK that fills buffers.
+	 */
+	private static void checkTopK(String name, Graph graph, Graph expected, List<Graph.Node> nodes, int k,
+			boolean buffers) {
+		int[] ids = new int[k], weights = new int[k];
+		int count;
+		if (buffers)
+			count = graph.topK(k, ids, weights);
+		else {
+			Graph.Node[] top = graph.topK(k);
+			count = top.length;
+			for (int i = 0; i < count; i++) {
+				ids[i] = top[i].getId();
+				weights[i] = graph.getNeighborhoodWeight(ids[i]);
+			}
+		}
+		int[] sorted = new int[expected.getNumNodes()];
+		int n = 0, weight;
+		for (Graph.Node node : nodes) {
+			weight = expected.getNeighborhoodWeight(node.getId());
+			if (weight != -1)
+				sorted[n++] = weight;
+		}
+		Arrays.sort(sorted);
+		if (count != Math.min(k, n))
+			System.out.println(name + ": count " + count + ", " + Math.min(k, n));
+		HashSet<Integer> seen = new HashSet<>();
+		for (int i = 0; i < Math.min(count, n); i++) {
+			if (!seen.add(ids[i]))
+				System.out.println(name + ": " + ids[i] + " repeated");
+			if ((weights[i] != expected.getNeighborhoodWeight(ids[i])) || (weights[i] != sorted[n - 1 - i]))
+				System.out.println(name + ": place " + i + " " + ids[i] + " " + weights[i] + ", " + sorted[n - 1 - i]);
+		}
+		System.out.println("Done! " + name + " " + k + " compared.");
+	}
+	
+	/**
+	 * @param nodes
+	 * @return the id of a random node, or, once in 8 times, a random id that no node has.
+	 */
+	private static int randomId(Graph.Node[] nodes) {
+		if (rand.nextInt(8) > 0)
+			return nodes[rand.nextInt(nodes.length)].getId();
+		return rand.nextBoolean() ? -1 - rand.nextInt(100) : bound + rand.nextInt(100);
+	}
+	
+	/**
+	 * Applies the same random operations to all the graphs: addEdge, deleteNode, removeEdge, updateWeight
+	 * and addNode, on random nodes, deleted ones included. Prints the operations whose results differ.
+	 * @param count – the number of operations.
+	 * @param nodes – the nodes so far; new nodes are appended.
+	 * @param graphs
+	 */
+	private static void randomOperations(int count, List<Graph.Node> nodes, Graph... graphs) {
+		int a, b, op;
+		boolean changed, expected = false;
+		for (int i = 0; i < count; i++) {
+			a = nodes.get(rand.nextInt(nodes.size())).getId();
+			b = nodes.get(rand.nextInt(nodes.size())).getId();
+			op = rand.nextInt(16);
+			if (op == 0) {
+				do {
+					a = rand.nextInt(bound);
+				} while (myWeight(nodes, a) != -1);
+				nodes.add(new Graph.Node(a, rand.nextInt(1000)));
+			}
+			else if (op == 1)
+				b = rand.nextInt(1000);
+			for (int j = 0; j < graphs.length; j++) {
+				if (op == 0)
+					changed = graphs[j].addNode(nodes.get(nodes.size() - 1));
+				else if (op == 1)
+					changed = graphs[j].updateWeight(a, b);
+				else if (op < 4)
+					changed = graphs[j].deleteNode(a);
+				else if (op < 6)
+					changed = graphs[j].removeEdge(a, b);
+				else
+					changed = graphs[j].addEdge(a, b);
+				if (j == 0)
+					expected = changed;
+				else if (changed != expected)
+					System.out.println("operation " + op + " on " + a + ", " + b + ": " + changed);
+			}
+		}
+	}
+	
+	/**
+	 * Runs the action for t = 0, ..., threads - 1, every t in its own thread, and waits for all of them.
+	 * @param threads
+	 * @param action
+	 */
+	private static void runThreads(int threads, IntConsumer action) throws InterruptedException {
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			int index = t;
+			workers[t] = new Thread(() -> action.accept(index));
+			workers[t].start();
+		}
+		for (Thread worker : workers)
+			worker.join();
+	}
+	
+	/**
+	 * @param n
+	 * @return n nodes of distinct random ids and random weights.
+	 */
+	private static Graph.Node[] randomNodes(int n) {
+		HashSet<Integer> ids = new HashSet<>();
+		Graph.Node[] nodes = new Graph.Node[n];
+		int a;
+		for (int i = 0; i < n; i++) {
+			do {
+				a = rand.nextInt(bound);
+			} while (!ids.add(a));
+			nodes[i] = new Graph.Node(a, rand.nextInt(1000));
+		}
+		return nodes;
+	}
+	
+	/**
+	 * @param nodes
+	 * @param id
+	 * @return the weight of the node of the id.
+	 */
+	private static int myWeight(List<Graph.Node> nodes, int id) {
+		for (Graph.Node node : nodes)
+			if (node.getId() == id)
+				return node.getWeight();
+		return -1;
+	}
+	
+	/**
+	 * Prints every difference between a graph and the expected one: the counts, the neighborhood weight of
+	 * every node, and the neighborhood weight of the max.
+	 * @param name – the name of the test.
+	 * @param expected
+	 * @param nodes – the nodes to compare.
+	 * @param neighborhoodWeight – getNeighborhoodWeight of the graph.
+	 * @param numNodes
+	 * @param numEdges
+	 * @param max – maxNeighborhoodWeight of the graph.
+	 */
+	private static void compare(String name, Graph expected, List<Graph.Node> nodes, IntUnaryOperator neighborhoodWeight,
+			int numNodes, int numEdges, Graph.Node max) {
+		if (numNodes != expected.getNumNodes())
+			System.out.println(name + ": numNodes " + numNodes + ", " + expected.getNumNodes());
+		if (numEdges != expected.getNumEdges())
+			System.out.println(name + ": numEdges " + numEdges + ", " + expected.getNumEdges());
+		for (Graph.Node node : nodes)
+			if (neighborhoodWeight.applyAsInt(node.getId()) != expected.getNeighborhoodWeight(node.getId()))
+				System.out.println(name + ": " + node.getId() + " " + neighborhoodWeight.applyAsInt(node.getId())
+						+ ", " + expected.getNeighborhoodWeight(node.getId()));
+		Graph.Node expectedMax = expected.maxNeighborhoodWeight();
+		if ((max == null) != (expectedMax == null))
+			System.out.println(name + ": max " + max + ", " + expectedMax);
+		else if ((max != null) && (neighborhoodWeight.applyAsInt(max.getId())
+				!= expected.getNeighborhoodWeight(expectedMax.getId())))
+			System.out.println(name + ": max " + max.getId() + ", " + expectedMax.getId());
+		System.out.println("Done! " + name + " compared.");
+	}
+	
 	public static void testExceptions() {
 		N = 2;
 		Graph.Node[] nodes = new Graph.Node[N];